@@ -0,0 +1,116 @@
+import tasks.*;
+import utils.CsvUtil;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение скорости CSV-кодека: прежняя реализация (split + join + DateTimeFormatter)
+ * против однопроходной из CsvUtil. Запуск: java -cp out CsvCodecBenchmark [строк] [повторов].
+ * Печатает строки в секунду для записи и разбора; учитывается лучший из повторов после прогрева.
+ */
+public class CsvCodecBenchmark {
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<Task> tasks = new ArrayList<>(rows);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 1; i <= rows; i++) {
+            if (i % 3 == 0) {
+                tasks.add(new Subtask(i, "Подзадача " + i, "Описание подзадачи", TaskStatus.IN_PROGRESS,
+                        Duration.ofMinutes(30), start.plusMinutes(45L * i), i - 1));
+            } else {
+                tasks.add(new Task(i, "Задача " + i, "Описание задачи", TaskStatus.NEW,
+                        Duration.ofMinutes(30), start.plusMinutes(45L * i)));
+            }
+        }
+        List<String> legacyLines = new ArrayList<>(rows);
+        List<String> lines = new ArrayList<>(rows);
+        for (Task task : tasks) {
+            legacyLines.add(Legacy.toCsv(task));
+            lines.add(CsvUtil.toCsv(task));
+        }
+
+        report("запись, прежняя", rows, rounds, () -> {
+            long sink = 0;
+            for (Task task : tasks) {
+                sink += Legacy.toCsv(task).length();
+            }
+            return sink;
+        });
+        report("запись, CsvUtil", rows, rounds, () -> {
+            long sink = 0;
+            StringBuilder row = new StringBuilder(128);
+            for (Task task : tasks) {
+                row.setLength(0);
+                sink += CsvUtil.appendCsv(row, task).length();
+            }
+            return sink;
+        });
+        report("разбор, прежний", rows, rounds, () -> {
+            long sink = 0;
+            for (String line : legacyLines) {
+                sink += Legacy.fromCsvTask(line).getId();
+            }
+            return sink;
+        });
+        report("разбор, CsvUtil", rows, rounds, () -> {
+            long sink = 0;
+            for (String line : lines) {
+                sink += CsvUtil.fromCsvTask(line).getId();
+            }
+            return sink;
+        });
+    }
+
+    private interface Body {
+        long run();
+    }
+
+    private static void report(String name, int rows, int rounds, Body body) {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            long started = System.nanoTime();
+            sink += body.run();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        System.out.printf("%-18s %,12.0f строк/с  (контрольная сумма %d)%n",
+                name, rows * 1e9 / best, sink);
+    }
+
+    // Реализация CsvUtil до перехода на однопроходный кодек — для сравнения
+    private static final class Legacy {
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        static String toCsv(Task task) {
+            String[] fields = new String[8];
+            fields[0] = String.valueOf(task.getId());
+            fields[1] = task.getType().toString();
+            fields[2] = task.getName();
+            fields[3] = task.getStatus().toString();
+            fields[4] = task.getDescription();
+            fields[5] = task.getStartTime() != null ? task.getStartTime().format(FORMATTER) : "";
+            fields[6] = task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "";
+            fields[7] = task.getType() == TaskType.SUBTASK ? String.valueOf(((Subtask) task).getEpicId()) : "";
+            return String.join(",", fields);
+        }
+
+        static Task fromCsvTask(String csv) {
+            String[] fields = csv.split(",", -1);
+            int id = Integer.parseInt(fields[0]);
+            TaskType type = TaskType.valueOf(fields[1]);
+            TaskStatus status = TaskStatus.valueOf(fields[3]);
+            LocalDateTime startTime = !fields[5].isEmpty() ? LocalDateTime.parse(fields[5], FORMATTER) : null;
+            Duration duration = !fields[6].isEmpty() ? Duration.ofMinutes(Long.parseLong(fields[6])) : Duration.ZERO;
+            if (type == TaskType.SUBTASK) {
+                return new Subtask(id, fields[2], fields[4], status, duration, startTime, Integer.parseInt(fields[7]));
+            }
+            return new Task(id, fields[2], fields[4], status, duration, startTime);
+        }
+    }
+}
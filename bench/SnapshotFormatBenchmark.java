@@ -0,0 +1,83 @@
+import managers.FileBackedTaskManager;
+import managers.SnapshotConverter;
+import tasks.*;
+import utils.BinaryTaskCodec;
+import utils.CsvUtil;
+import utils.MappedLineReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Размер файла и время загрузки снимка в форматах CSV, BINARY и BINARY_DEFLATE.
+ * Запуск: java -cp out SnapshotFormatBenchmark [задач] [повторов].
+ * Для каждого формата печатается лучшее из повторов время разбора файла в задачи
+ * и время полного loadFromFile (разбор плюс сборка структур менеджера, одинаковая для всех форматов).
+ */
+public class SnapshotFormatBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File csv = File.createTempFile("snapshot", ".csv");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csv), StandardCharsets.UTF_8))) {
+            writer.write(CsvUtil.HEADER);
+            writer.write('\n');
+            LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+            int epicId = 0;
+            for (int i = 1; i <= count; i++) {
+                Task task;
+                if (i % 100 == 1) {
+                    epicId = i;
+                    task = new Epic(i, "Эпик " + i, "Описание эпика");
+                } else if (i % 3 == 0) {
+                    task = new Subtask(i, "Подзадача " + i, "Описание подзадачи", TaskStatus.IN_PROGRESS,
+                            Duration.ofMinutes(30), start.plusMinutes(45L * i), epicId);
+                } else {
+                    task = new Task(i, "Задача " + i, "Описание задачи", TaskStatus.NEW,
+                            Duration.ofMinutes(30), start.plusMinutes(45L * i));
+                }
+                writer.write(CsvUtil.toCsv(task));
+                writer.write('\n');
+            }
+        }
+
+        for (FileBackedTaskManager.SnapshotFormat format : FileBackedTaskManager.SnapshotFormat.values()) {
+            File file = File.createTempFile("snapshot", "." + format.name().toLowerCase());
+            SnapshotConverter.convert(csv.toPath(), file.toPath(), format);
+            long bestParse = Long.MAX_VALUE;
+            long bestLoad = Long.MAX_VALUE;
+            for (int i = 0; i < rounds; i++) {
+                long started = System.nanoTime();
+                long[] sink = {0};
+                if (format == FileBackedTaskManager.SnapshotFormat.CSV) {
+                    boolean[] header = {true};
+                    MappedLineReader.forEachRecord(file.toPath(), line -> {
+                        if (header[0]) {
+                            header[0] = false;
+                            return;
+                        }
+                        sink[0] += CsvUtil.fromCsvTask(line).getId();
+                    });
+                } else {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16)) {
+                        BinaryTaskCodec.read(in, task -> sink[0] += task.getId());
+                    }
+                }
+                bestParse = Math.min(bestParse, System.nanoTime() - started);
+
+                started = System.nanoTime();
+                FileBackedTaskManager manager = new FileBackedTaskManager(file);
+                manager.loadFromFile();
+                bestLoad = Math.min(bestLoad, System.nanoTime() - started);
+            }
+            System.out.printf("%-15s %,14d байт  разбор %,6d мс  loadFromFile %,6d мс%n",
+                    format, file.length(), bestParse / 1_000_000, bestLoad / 1_000_000);
+            file.delete();
+        }
+        csv.delete();
+    }
+}
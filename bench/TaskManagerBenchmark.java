@@ -0,0 +1,371 @@
+import managers.HistoryManager;
+import managers.InMemoryTaskManager;
+import managers.Managers;
+import tasks.*;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Время операций InMemoryTaskManager в зависимости от размера и формы доски.
+ * Запуск: java -Xmx4g -cp out:bench TaskManagerBenchmark [размеры] [формы] [прогревов] [замеров] [файл.csv],
+ * например: TaskManagerBenchmark 1000,10000,100000,1000000 SPARSE,OVERLAP_HEAVY,EPIC_HEAVY 3 5 results.csv.
+ * <p>
+ * Как в JMH: для каждой операции сначала выполняются прогревочные итерации, затем замеры; итерация —
+ * серия из OPS_PER_ITERATION вызовов (для операций O(n) — меньше), результат — среднее нс/оп по замерам
+ * и стандартное отклонение. Состояние доски между итерациями восстанавливается вне замера. Строки
+ * результатов (операция, форма, размер, нс/оп, отклонение) дописываются в CSV-файл, чтобы сравнивать
+ * версии между собой.
+ * <p>
+ * Формы доски:
+ * SPARSE — задачи и эпики по 9 подзадач, четверть задач без времени, новые задачи встают в свободные окна;
+ * OVERLAP_HEAVY — почти все задачи в расписании, половина новых задач пересекается с соседями и отклоняется;
+ * EPIC_HEAVY — почти вся доска из эпиков по 1000 подзадач, обновление подзадачи пересчитывает большой эпик.
+ */
+public class TaskManagerBenchmark {
+    private static final int OPS_PER_ITERATION = 10_000;
+    // Задачи в расписании идут через SLOT_MINUTES, длительность TASK_MINUTES, между ними свободное окно
+    private static final int SLOT_MINUTES = 45;
+    private static final int TASK_MINUTES = 30;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static volatile long sink;
+
+    enum Shape {
+        SPARSE(60, 9, 4),
+        OVERLAP_HEAVY(90, 9, 0),
+        EPIC_HEAVY(1, 1000, 0);
+
+        // Доля обычных задач в процентах, подзадач на эпик, каждая какая задача без времени (0 — все со временем)
+        final int taskPercent;
+        final int subtasksPerEpic;
+        final int untimedEvery;
+
+        Shape(int taskPercent, int subtasksPerEpic, int untimedEvery) {
+            this.taskPercent = taskPercent;
+            this.subtasksPerEpic = subtasksPerEpic;
+            this.untimedEvery = untimedEvery;
+        }
+    }
+
+    private interface Operation {
+        // Выполнить серию из ops вызовов и вернуть время замеряемой части в наносекундах
+        long run(Board board, int ops);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String sizes = args.length > 0 ? args[0] : "1000,10000,100000,1000000";
+        String shapes = args.length > 1 ? args[1] : "SPARSE,OVERLAP_HEAVY,EPIC_HEAVY";
+        int warmups = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int measurements = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        PrintWriter csv = args.length > 4 ? new PrintWriter(new FileWriter(args[4], true)) : null;
+        if (csv != null) {
+            csv.printf("# %s java=%s%n", LocalDate.now(), System.getProperty("java.version"));
+            csv.println("operation,shape,size,ns_per_op,stddev");
+        }
+
+        System.out.printf("%-20s %-14s %10s %14s %12s%n", "операция", "форма", "задач", "нс/оп", "±");
+        for (String shapeName : shapes.split(",")) {
+            Shape shape = Shape.valueOf(shapeName.trim());
+            for (String sizeText : sizes.split(",")) {
+                int size = Integer.parseInt(sizeText.trim());
+                Board board = new Board(shape, size);
+                // Каждое свободное окно занимается за серию не больше одного раза
+                int inserts = Math.min(OPS_PER_ITERATION, board.candidateSlots.length);
+                bench(csv, board, "addNewTask", warmups, measurements, inserts,
+                        TaskManagerBenchmark::addNewTask);
+                bench(csv, board, "addNewSubtask", warmups, measurements, inserts,
+                        TaskManagerBenchmark::addNewSubtask);
+                bench(csv, board, "updateSubtask", warmups, measurements, OPS_PER_ITERATION,
+                        TaskManagerBenchmark::updateSubtask);
+                bench(csv, board, "getTask", warmups, measurements, OPS_PER_ITERATION,
+                        TaskManagerBenchmark::getTask);
+                bench(csv, board, "getPrioritizedTasks", warmups, measurements,
+                        Math.max(1, 1_000_000 / size), TaskManagerBenchmark::getPrioritizedTasks);
+                bench(csv, board, "removeEpic", warmups, measurements,
+                        Math.min(board.epicIds.length, 100), TaskManagerBenchmark::removeEpic);
+                bench(csv, board, "history.add", warmups, measurements, OPS_PER_ITERATION,
+                        TaskManagerBenchmark::historyAdd);
+                bench(csv, board, "history.remove", warmups, measurements, OPS_PER_ITERATION,
+                        TaskManagerBenchmark::historyRemove);
+                bench(csv, board, "getHistory", warmups, measurements, OPS_PER_ITERATION,
+                        TaskManagerBenchmark::getHistory);
+            }
+        }
+        if (csv != null) {
+            csv.close();
+        }
+    }
+
+    private static void bench(PrintWriter csv, Board board, String name, int warmups, int measurements,
+                              int ops, Operation operation) {
+        for (int i = 0; i < warmups; i++) {
+            operation.run(board, ops);
+        }
+        double[] results = new double[measurements];
+        double mean = 0;
+        for (int i = 0; i < measurements; i++) {
+            results[i] = (double) operation.run(board, ops) / ops;
+            mean += results[i] / measurements;
+        }
+        double variance = 0;
+        for (double result : results) {
+            variance += (result - mean) * (result - mean) / Math.max(1, measurements - 1);
+        }
+        double stddev = Math.sqrt(variance);
+        System.out.printf("%-20s %-14s %,10d %,14.1f %,12.1f%n", name, board.shape, board.size, mean, stddev);
+        if (csv != null) {
+            csv.printf(Locale.ROOT, "%s,%s,%d,%.1f,%.1f%n", name, board.shape, board.size, mean, stddev);
+            csv.flush();
+        }
+    }
+
+    // Операции возвращают время замеряемой части; восстановление доски после серии в него не входит
+
+    private static long addNewTask(Board board, int ops) {
+        int[] added = new int[ops];
+        int count = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            try {
+                added[count] = board.manager.addNewTask(board.candidate(i));
+                count++;
+            } catch (IllegalArgumentException e) {
+                // Пересечение: в OVERLAP_HEAVY так задумано для половины вставок
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        for (int i = 0; i < count; i++) {
+            board.manager.removeTask(added[i]);
+        }
+        sink += count;
+        return elapsed;
+    }
+
+    private static long addNewSubtask(Board board, int ops) {
+        int[] added = new int[ops];
+        int count = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            Task slot = board.candidate(i);
+            int epicId = board.epicIds[board.random[i] % board.epicIds.length];
+            try {
+                added[count] = board.manager.addNewSubtask(new Subtask("Новая подзадача", "Описание",
+                        TaskStatus.NEW, slot.getDuration(), slot.getStartTime(), epicId));
+                count++;
+            } catch (IllegalArgumentException e) {
+                // Пересечение, как в addNewTask
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        for (int i = 0; i < count; i++) {
+            board.manager.removeSubtask(added[i]);
+        }
+        sink += count;
+        return elapsed;
+    }
+
+    // Меняет статус подзадачи туда и обратно; время и эпик остаются прежними
+    private static long updateSubtask(Board board, int ops) {
+        Subtask[] updates = new Subtask[ops];
+        for (int i = 0; i < ops; i++) {
+            updates[i] = board.toggledSubtask(board.random[i] % board.subtaskIds.length);
+        }
+        long started = System.nanoTime();
+        for (Subtask update : updates) {
+            board.manager.updateSubtask(update);
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static long getTask(Board board, int ops) {
+        long checksum = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            checksum += board.manager.getTask(board.taskIds[board.random[i] % board.taskIds.length]).getId();
+        }
+        long elapsed = System.nanoTime() - started;
+        sink += checksum;
+        return elapsed;
+    }
+
+    private static long getPrioritizedTasks(Board board, int ops) {
+        long checksum = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            checksum += board.manager.getPrioritizedTasks().size();
+        }
+        long elapsed = System.nanoTime() - started;
+        sink += checksum;
+        return elapsed;
+    }
+
+    // Удаляет эпики вместе с подзадачами, затем добавляет их заново на те же места в расписании
+    private static long removeEpic(Board board, int ops) {
+        int step = board.epicIds.length / ops;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            board.manager.removeEpic(board.epicIds[i * step]);
+        }
+        long elapsed = System.nanoTime() - started;
+        for (int i = 0; i < ops; i++) {
+            board.addEpic(i * step);
+        }
+        return elapsed;
+    }
+
+    private static long historyAdd(Board board, int ops) {
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            board.history.add(board.viewed[board.random[i] % board.viewed.length]);
+        }
+        long elapsed = System.nanoTime() - started;
+        sink += board.history.getHistory().size();
+        return elapsed;
+    }
+
+    // Удаление из истории и повторный просмотр той же задачи
+    private static long historyRemove(Board board, int ops) {
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            Task task = board.viewed[board.random[i] % board.viewed.length];
+            board.history.remove(task.getId());
+            board.history.add(task);
+        }
+        long elapsed = System.nanoTime() - started;
+        sink += board.history.getHistory().size();
+        return elapsed;
+    }
+
+    private static long getHistory(Board board, int ops) {
+        long checksum = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            checksum += board.manager.getHistory().size();
+        }
+        long elapsed = System.nanoTime() - started;
+        sink += checksum;
+        return elapsed;
+    }
+
+    // Доска заданной формы и размера; хранит id и места в расписании, чтобы восстанавливать состояние
+    private static final class Board {
+        final Shape shape;
+        final int size;
+        final InMemoryTaskManager manager = new InMemoryTaskManager();
+        final HistoryManager history = Managers.getDefaultHistory();
+        final int[] taskIds;
+        final int[] epicIds;
+        // Подзадачи эпика e — с e * subtasksPerEpic, место в расписании — subtaskSlots
+        final int[] subtaskIds;
+        final int[] subtaskSlots;
+        final boolean[] subtaskDone;
+        // Окна для новых задач в случайном порядке и случайные индексы для выборки
+        final int[] candidateSlots;
+        final int[] random;
+        final Task[] viewed;
+
+        Board(Shape shape, int size) {
+            this.shape = shape;
+            this.size = size;
+            int epicCount = Math.max(1, size * (100 - shape.taskPercent) / 100 / (shape.subtasksPerEpic + 1));
+            int taskCount = Math.max(1, size - epicCount * (shape.subtasksPerEpic + 1));
+            taskIds = new int[taskCount];
+            epicIds = new int[epicCount];
+            subtaskIds = new int[epicCount * shape.subtasksPerEpic];
+            subtaskSlots = new int[subtaskIds.length];
+            subtaskDone = new boolean[subtaskIds.length];
+
+            // Места в расписании перемешаны между задачами и подзадачами
+            int slots = taskCount + subtaskIds.length;
+            int[] order = shuffled(slots, new Random(42));
+            List<Task> batch = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                boolean untimed = shape.untimedEvery > 0 && i % shape.untimedEvery == 0;
+                batch.add(untimed
+                        ? new Task("Задача " + i, "Описание задачи", TaskStatus.NEW, null, null)
+                        : new Task("Задача " + i, "Описание задачи", TaskStatus.NEW,
+                        Duration.ofMinutes(TASK_MINUTES), slotStart(order[i])));
+            }
+            List<Integer> ids = manager.addNewTasks(batch).getIds();
+            for (int i = 0; i < taskCount; i++) {
+                taskIds[i] = ids.get(i);
+            }
+            for (int i = 0; i < subtaskSlots.length; i++) {
+                subtaskSlots[i] = order[taskCount + i];
+            }
+            for (int e = 0; e < epicCount; e++) {
+                addEpic(e);
+            }
+
+            candidateSlots = shuffled(slots, new Random(7));
+            random = new int[OPS_PER_ITERATION];
+            Random rnd = new Random(1);
+            for (int i = 0; i < random.length; i++) {
+                random[i] = rnd.nextInt(Integer.MAX_VALUE);
+            }
+            viewed = new Task[Math.min(taskCount, 1000)];
+            for (int i = 0; i < viewed.length; i++) {
+                viewed[i] = manager.getTask(taskIds[i]);
+            }
+        }
+
+        // Добавить эпик с индексом e и его подзадачи на их места в расписании
+        void addEpic(int e) {
+            epicIds[e] = manager.addNewEpic(new Epic("Эпик " + e, "Описание эпика"));
+            int from = e * shape.subtasksPerEpic;
+            List<Subtask> batch = new ArrayList<>(shape.subtasksPerEpic);
+            for (int i = from; i < from + shape.subtasksPerEpic; i++) {
+                batch.add(new Subtask("Подзадача " + i, "Описание подзадачи", TaskStatus.NEW,
+                        Duration.ofMinutes(TASK_MINUTES), slotStart(subtaskSlots[i]), epicIds[e]));
+            }
+            List<Integer> ids = manager.addNewSubtasks(batch).getIds();
+            for (int i = 0; i < ids.size(); i++) {
+                subtaskIds[from + i] = ids.get(i);
+                subtaskDone[from + i] = false;
+            }
+        }
+
+        // Новая версия подзадачи с индексом i с противоположным статусом
+        Subtask toggledSubtask(int i) {
+            subtaskDone[i] = !subtaskDone[i];
+            return new Subtask(subtaskIds[i], "Подзадача " + i, "Описание подзадачи",
+                    subtaskDone[i] ? TaskStatus.DONE : TaskStatus.NEW, Duration.ofMinutes(TASK_MINUTES),
+                    slotStart(subtaskSlots[i]), epicIds[i / shape.subtasksPerEpic]);
+        }
+
+        // i-я новая задача: в свободное окно после места, а в OVERLAP_HEAVY каждая вторая — поперёк соседа
+        Task candidate(int i) {
+            int slot = candidateSlots[i % candidateSlots.length];
+            boolean overlapping = shape == Shape.OVERLAP_HEAVY && i % 2 == 1;
+            LocalDateTime start = slotStart(slot).plusMinutes(overlapping ? TASK_MINUTES - 5 : TASK_MINUTES + 2);
+            return new Task("Новая задача " + i, "Описание", TaskStatus.NEW, Duration.ofMinutes(10), start);
+        }
+
+        private static LocalDateTime slotStart(int slot) {
+            return BASE.plusMinutes((long) SLOT_MINUTES * slot);
+        }
+
+        private static int[] shuffled(int n, Random rnd) {
+            int[] result = new int[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                int swap = result[i];
+                result[i] = result[j];
+                result[j] = swap;
+            }
+            return result;
+        }
+    }
+}
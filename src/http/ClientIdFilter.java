@@ -0,0 +1,38 @@
+package http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import managers.PerClientHistoryManager;
+
+import java.io.IOException;
+
+/**
+ * Привязывает обработку запроса к клиенту из заголовка X-Client-Id, чтобы просмотры и /history
+ * попадали в историю этого клиента (см. PerClientHistoryManager). Без заголовка используется общая
+ * история. Обработчик выполняется в том же потоке, что и фильтр, при любом ExecutorMode.
+ */
+public class ClientIdFilter extends Filter {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    public static final int MAX_CLIENT_ID_LENGTH = 128;
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId != null && (clientId.isEmpty() || clientId.length() > MAX_CLIENT_ID_LENGTH)) {
+            exchange.sendResponseHeaders(400, 0);
+            exchange.close();
+            return;
+        }
+        PerClientHistoryManager.setCurrentClient(clientId);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            PerClientHistoryManager.clearCurrentClient();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Клиент из заголовка " + CLIENT_ID_HEADER;
+    }
+}
@@ -3,42 +3,117 @@ package http;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpServer;
 import http.handler.*;
+import managers.ConcurrentTaskManager;
+import managers.HistoryManager;
+import managers.InMemoryTaskManager;
 import managers.Managers;
+import managers.PerClientHistoryManager;
+import managers.RingBufferHistoryManager;
 import managers.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
+    public static final int DEFAULT_PORT = 8080;
+    // 0 — размер очереди входящих соединений по умолчанию для ОС
+    public static final int DEFAULT_BACKLOG = 0;
+    // Сколько stop ждёт завершения запросов в пуле потоков
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Способ обработки запросов.
+     * DISPATCHER — все запросы на потоке-диспетчере HttpServer (подходит любой TaskManager);
+     * THREAD_POOL — пул платформенных потоков по числу ядер;
+     * VIRTUAL_THREADS — отдельный виртуальный поток на каждый запрос.
+     * Для многопоточных режимов нужен потокобезопасный менеджер (Managers.getConcurrent()).
+     */
+    public enum ExecutorMode {
+        DISPATCHER,
+        THREAD_POOL,
+        VIRTUAL_THREADS
+    }
+
+    private final int port;
     private final HttpServer server;
+    private final ExecutorService executor;
     private final TaskManager taskManager;
     private static final Gson gson = Managers.getGson();
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, DEFAULT_PORT, DEFAULT_BACKLOG, ExecutorMode.DISPATCHER);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port, int backlog, ExecutorMode mode) throws IOException {
         this.taskManager = taskManager;
-        this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.port = port;
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        this.executor = createExecutor(mode);
+        server.setExecutor(executor);
+
+        ClientIdFilter clientIdFilter = new ClientIdFilter();
+        server.createContext("/tasks", new TasksHandler(taskManager)).getFilters().add(clientIdFilter);
+        server.createContext("/subtasks", new SubtasksHandler(taskManager)).getFilters().add(clientIdFilter);
+        server.createContext("/epics", new EpicsHandler(taskManager)).getFilters().add(clientIdFilter);
+        server.createContext("/history", new HistoryHandler(taskManager)).getFilters().add(clientIdFilter);
+        server.createContext("/prioritized", new PrioritizedHandler(taskManager)).getFilters().add(clientIdFilter);
+        server.createContext("/batch", new BatchHandler(taskManager)).getFilters().add(clientIdFilter);
+    }
 
-        server.createContext("/tasks", new TasksHandler(taskManager));
-        server.createContext("/subtasks", new SubtasksHandler(taskManager));
-        server.createContext("/epics", new EpicsHandler(taskManager));
-        server.createContext("/history", new HistoryHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+    private static ExecutorService createExecutor(ExecutorMode mode) {
+        switch (mode) {
+            case THREAD_POOL:
+                return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            case VIRTUAL_THREADS:
+                return Executors.newVirtualThreadPerTaskExecutor();
+            case DISPATCHER:
+            default:
+                return null;
+        }
     }
 
     public void start() {
         server.start();
-        System.out.println("HTTP-сервер запущен на порту " + PORT);
+        System.out.println("HTTP-сервер запущен на порту " + port);
     }
 
+    // Остановить сервер и дождаться запросов, ещё выполняющихся в пуле (не дольше STOP_TIMEOUT_SECONDS)
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
         System.out.println("HTTP-сервер остановлен.");
     }
 
 
+    // Параметры запуска: -Dhttp.port=8080 -Dhttp.backlog=0 -Dhttp.executor=VIRTUAL_THREADS
+    // -Dhistory.size=10 -Dhistory.maxClients=10000 (история просмотров у каждого клиента X-Client-Id своя)
+    // -Dhistory.async=true (просмотры пишутся в историю асинхронно, см. AsyncHistoryManager)
     public static void main(String[] args) throws IOException {
-        TaskManager manager = Managers.getDefault();
-        new HttpTaskServer(manager).start();
+        int port = Integer.getInteger("http.port", DEFAULT_PORT);
+        int backlog = Integer.getInteger("http.backlog", DEFAULT_BACKLOG);
+        ExecutorMode mode = ExecutorMode.valueOf(System.getProperty("http.executor", ExecutorMode.DISPATCHER.name()));
+        HistoryManager history = Managers.getPerClientHistory(
+                Integer.getInteger("history.size", RingBufferHistoryManager.DEFAULT_CAPACITY),
+                Integer.getInteger("history.maxClients", PerClientHistoryManager.DEFAULT_MAX_CLIENTS));
+        if (Boolean.getBoolean("history.async")) {
+            history = Managers.getAsyncHistory(history);
+        }
+        TaskManager manager = mode == ExecutorMode.DISPATCHER
+                ? new InMemoryTaskManager(history)
+                : new ConcurrentTaskManager(history);
+        new HttpTaskServer(manager, port, backlog, mode).start();
     }
-}
\ No newline at end of file
+}
@@ -1,22 +1,42 @@
 package http.handler;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import managers.Managers;
+import tasks.Task;
 
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 /**
  * Базовый абстрактный обработчик HTTP-запросов с общими методами ответа.
  */
 public abstract class BaseHttpHandler implements HttpHandler {
+    // Заголовок с курсором следующей страницы; отсутствует на последней странице
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final String CURSOR_PREFIX = "id:";
 
     protected final Gson gson = Managers.getGson();
 
+    // Источник страниц: до limit элементов с id больше afterId
+    @FunctionalInterface
+    protected interface PageSource<T extends Task> {
+        List<T> load(int afterId, int limit);
+    }
+
 
     protected void sendText(HttpExchange exchange, String text) throws IOException {
         byte[] resp = text.getBytes(StandardCharsets.UTF_8);
@@ -26,17 +46,135 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Записать список как JSON-массив прямо в тело ответа.
+     * Длина заранее неизвестна, поэтому ответ уходит с chunked-кодированием; элементы
+     * сериализуются по одному через JsonWriter, без промежуточных String и byte[] на весь список.
+     */
+    protected void sendJsonList(HttpExchange exchange, Iterable<?> items) throws IOException {
+        JsonWriter writer = startJsonStream(exchange);
+        writer.beginArray();
+        for (Object item : items) {
+            gson.toJson(item, item.getClass(), writer);
+        }
+        writer.endArray();
+        writer.close();
+    }
+
+    /**
+     * Отправить заголовки 200 и вернуть JsonWriter на тело ответа.
+     * Закрывать writer только после того, как тело записано целиком: если запись прервалась
+     * исключением, тело остаётся незавершённым и соединение обрывается (см. sendServerError),
+     * так что клиент получает ошибку, а не обрезанный массив под видом успешного ответа.
+     */
+    protected JsonWriter startJsonStream(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, 0);
+        OutputStreamWriter out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        return gson.newJsonWriter(new BufferedWriter(out));
+    }
+
+    // Разобрать строку запроса вида a=1&b=2 в карту параметров
+    protected Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    // Отправить страницу списка по параметрам limit и cursor (непрозрачная строка из X-Next-Cursor)
+    protected <T extends Task> void sendPage(HttpExchange exchange, Map<String, String> params,
+                                             PageSource<T> source) throws IOException {
+        int limit;
+        int afterId;
+        try {
+            limit = Integer.parseInt(params.get("limit"));
+            afterId = params.containsKey("cursor") ? decodeCursor(params.get("cursor")) : 0;
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            sendBadRequest(exchange);
+            return;
+        }
+        List<T> page = source.load(afterId, limit);
+        if (page.size() == limit) {
+            exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, encodeCursor(page.get(page.size() - 1).getId()));
+        }
+        sendJsonList(exchange, page);
+    }
+
+    /**
+     * Отправить задачи по списку id из параметра ids=1,2,3 одним ответом, в порядке запроса.
+     * Несуществующие id пропускаются; больше MAX_PAGE_SIZE id за раз не принимается.
+     */
+    protected <T extends Task> void sendByIds(HttpExchange exchange, String ids,
+                                              IntFunction<T> lookup) throws IOException {
+        String[] parts = ids.split(",");
+        if (parts.length > MAX_PAGE_SIZE) {
+            sendBadRequest(exchange);
+            return;
+        }
+        int[] parsed = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                parsed[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        List<T> found = new ArrayList<>(parsed.length);
+        for (int id : parsed) {
+            T item = lookup.apply(id);
+            if (item != null) {
+                found.add(item);
+            }
+        }
+        sendJsonList(exchange, found);
+    }
+
+    protected static String encodeCursor(int lastId) {
+        byte[] raw = (CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    protected static int decodeCursor(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!raw.startsWith(CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        return Integer.parseInt(raw.substring(CURSOR_PREFIX.length()));
+    }
+
     protected void sendCreated(HttpExchange exchange) throws IOException {
         exchange.sendResponseHeaders(201, 0);
         exchange.close();
     }
 
+    protected void sendBadRequest(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(400, 0);
+        exchange.close();
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         exchange.sendResponseHeaders(404, 0);
         exchange.close();
     }
 
+    // Ответ 500; если заголовки уже ушли (тело отдаётся потоком), вместо него обрывает соединение
     protected void sendServerError(HttpExchange exchange) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // Исключение из handle заставляет HttpServer закрыть соединение, не завершая chunked-тело
+            throw new IOException("Ответ оборван: ошибка после отправки заголовков");
+        }
         exchange.sendResponseHeaders(500, 0);
         exchange.close();
     }
@@ -0,0 +1,229 @@
+package http.handler;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import managers.TaskManager;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * POST /batch — несколько операций над задачами за один запрос.
+ * Тело — JSON-массив операций вида {"op": "get|create|update|delete", "type": "task|subtask|epic",
+ * "id": 1, "ids": [1, 2], "body": {...}}. Операции выполняются по порядку, каждая отдельно:
+ * ошибка одной не отменяет остальные, пакет целиком не атомарен.
+ * Ответ — массив результатов в порядке операций: {"status": код, "id": id, "body": ...}, где код
+ * совпадает с тем, что вернул бы отдельный запрос к /tasks, /subtasks или /epics.
+ */
+public class BatchHandler extends BaseHttpHandler {
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final TaskManager manager;
+
+    public BatchHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    // Одна операция пакета в том виде, в каком она пришла в запросе
+    private static class Operation {
+        String op;
+        String type;
+        Integer id;
+        List<Integer> ids;
+        JsonObject body;
+    }
+
+    // Результат одной операции
+    private static class Result {
+        final int status;
+        final Integer id;
+        final Object body;
+
+        Result(int status, Integer id, Object body) {
+            this.status = status;
+            this.id = id;
+            this.body = body;
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendNotFound(exchange);
+            return;
+        }
+        Operation[] operations;
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            operations = gson.fromJson(body, Operation[].class);
+        } catch (JsonParseException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (operations == null || operations.length > MAX_BATCH_SIZE) {
+            sendBadRequest(exchange);
+            return;
+        }
+
+        // Весь пакет разобран, дальше каждая операция отвечает сама за себя, поэтому ответ можно писать потоком
+        // Сбой посреди записи обрывает соединение (см. startJsonStream)
+        JsonWriter writer = startJsonStream(exchange);
+        writer.beginArray();
+        for (Operation operation : operations) {
+            writeResult(writer, execute(operation));
+        }
+        writer.endArray();
+        writer.close();
+    }
+
+    private Result execute(Operation operation) {
+        if (operation == null || operation.op == null || !isKnownType(operation.type)) {
+            return new Result(400, null, null);
+        }
+        try {
+            switch (operation.op) {
+                case "get":
+                    return get(operation);
+                case "create":
+                case "update":
+                    return save(operation);
+                case "delete":
+                    return delete(operation);
+                default:
+                    return new Result(400, operation.id, null);
+            }
+        } catch (NoSuchElementException e) {
+            return new Result(404, operation.id, null);
+        } catch (JsonParseException e) {
+            // Тело операции не разбирается как задача — ошибка клиента
+            return new Result(400, operation.id, null);
+        } catch (IllegalArgumentException e) {
+            return new Result(406, operation.id, null);
+        } catch (RuntimeException e) {
+            return new Result(500, operation.id, null);
+        }
+    }
+
+    private static boolean isKnownType(String type) {
+        return "task".equals(type) || "subtask".equals(type) || "epic".equals(type);
+    }
+
+    private Result get(Operation operation) {
+        if (operation.ids != null) {
+            // Как и у GET ?ids=: одна операция не обходит ограничение на размер пакета
+            if (operation.ids.size() > MAX_PAGE_SIZE) {
+                return new Result(400, null, null);
+            }
+            List<Task> found = new ArrayList<>(operation.ids.size());
+            for (Integer id : operation.ids) {
+                Task task = id == null ? null : find(operation.type, id);
+                if (task != null) {
+                    found.add(task);
+                }
+            }
+            return new Result(200, null, found);
+        }
+        if (operation.id == null) {
+            return new Result(400, null, null);
+        }
+        Task task = find(operation.type, operation.id);
+        return task == null ? new Result(404, operation.id, null) : new Result(200, operation.id, task);
+    }
+
+    private Task find(String type, int id) {
+        switch (type) {
+            case "task":
+                return manager.getTask(id);
+            case "subtask":
+                return manager.getSubtask(id);
+            case "epic":
+                return manager.getEpic(id);
+            default:
+                throw new IllegalStateException("Неизвестный тип: " + type);
+        }
+    }
+
+    // create всегда добавляет новую задачу, update — только обновляет существующую
+    private Result save(Operation operation) {
+        if (operation.body == null) {
+            return new Result(400, operation.id, null);
+        }
+        boolean create = "create".equals(operation.op);
+        switch (operation.type) {
+            case "task": {
+                Task task = gson.fromJson(operation.body, Task.class);
+                if (create) {
+                    return new Result(201, manager.addNewTask(task), null);
+                }
+                manager.updateTask(task);
+                return new Result(201, task.getId(), null);
+            }
+            case "subtask": {
+                Subtask subtask = gson.fromJson(operation.body, Subtask.class);
+                if (create) {
+                    return new Result(201, manager.addNewSubtask(subtask), null);
+                }
+                manager.updateSubtask(subtask);
+                return new Result(201, subtask.getId(), null);
+            }
+            case "epic": {
+                Epic epic = gson.fromJson(operation.body, Epic.class);
+                if (create) {
+                    return new Result(201, manager.addNewEpic(epic), null);
+                }
+                manager.updateEpic(epic);
+                return new Result(201, epic.getId(), null);
+            }
+            default:
+                return new Result(400, operation.id, null);
+        }
+    }
+
+    // Удаление только по id: очистка всего списка через пакет не поддерживается
+    private Result delete(Operation operation) {
+        if (operation.id == null) {
+            return new Result(400, null, null);
+        }
+        switch (operation.type) {
+            case "task":
+                manager.removeTask(operation.id);
+                break;
+            case "subtask":
+                manager.removeSubtask(operation.id);
+                break;
+            case "epic":
+                manager.removeEpic(operation.id);
+                break;
+            default:
+                return new Result(400, operation.id, null);
+        }
+        return new Result(201, operation.id, null);
+    }
+
+    private void writeResult(JsonWriter writer, Result result) throws IOException {
+        writer.beginObject();
+        writer.name("status").value(result.status);
+        if (result.id != null) {
+            writer.name("id").value(result.id);
+        }
+        if (result.body instanceof Iterable) {
+            writer.name("body").beginArray();
+            for (Object item : (Iterable<?>) result.body) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        } else if (result.body != null) {
+            writer.name("body");
+            gson.toJson(result.body, result.body.getClass(), writer);
+        }
+        writer.endObject();
+    }
+}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 public class EpicsHandler extends BaseHttpHandler {
@@ -30,7 +31,7 @@ public class EpicsHandler extends BaseHttpHandler {
         if ("GET".equals(method) && path.matches("/epics/\\d+/subtasks")) {
             int epicId = Integer.parseInt(path.split("/")[2]);
             List<Subtask> subtasks = manager.getEpicSubtasks(epicId);
-            sendText(exchange, gson.toJson(subtasks));
+            sendJsonList(exchange, subtasks);
             return;
         }
 
@@ -47,8 +48,15 @@ public class EpicsHandler extends BaseHttpHandler {
                             sendNotFound(exchange);
                         }
                     } else {
-                        List<Epic> epics = manager.getEpics();
-                        sendText(exchange, gson.toJson(epics));
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey("ids")) {
+                            sendByIds(exchange, params.get("ids"), manager::getEpic);
+                        } else if (params.containsKey("limit")) {
+                            sendPage(exchange, params, manager::getEpicsPage);
+                        } else {
+                            List<Epic> epics = manager.getEpics();
+                            sendJsonList(exchange, epics);
+                        }
                     }
                     break;
                 case "POST":
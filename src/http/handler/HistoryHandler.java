@@ -25,7 +25,7 @@ public class HistoryHandler extends BaseHttpHandler {
         try {
             if ("GET".equals(method)) {
                 List<Task> history = manager.getHistory();
-                sendText(exchange, gson.toJson(history));
+                sendJsonList(exchange, history);
             } else {
                 sendNotFound(exchange);
             }
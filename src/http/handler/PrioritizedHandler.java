@@ -5,11 +5,18 @@ import com.sun.net.httpserver.HttpExchange;
 import managers.Managers;
 import managers.TaskManager;
 import tasks.Task;
+import tasks.TimeSlot;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
+    private static final int DEFAULT_FREE_SLOTS_LIMIT = 1;
+
     private final TaskManager manager;
     protected final Gson gson = Managers.getGson();
 
@@ -21,11 +28,14 @@ public class PrioritizedHandler extends BaseHttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
 
         try {
-            if ("GET".equals(method)) {
+            if ("GET".equals(method) && path.equals("/prioritized/free")) {
+                handleFreeSlots(exchange);
+            } else if ("GET".equals(method)) {
                 List<Task> prioritized = manager.getPrioritizedTasks();
-                sendText(exchange, gson.toJson(prioritized));
+                sendJsonList(exchange, prioritized);
             } else {
                 sendNotFound(exchange);
             }
@@ -34,4 +44,28 @@ public class PrioritizedHandler extends BaseHttpHandler {
             sendServerError(exchange);
         }
     }
+
+    // GET /prioritized/free?duration=PT30M&after=2025-05-20T10:00&limit=N, 1 <= N <= MAX_PAGE_SIZE
+    private void handleFreeSlots(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
+        List<TimeSlot> slots;
+        try {
+            Duration duration = Duration.parse(params.get("duration"));
+            LocalDateTime after = params.containsKey("after")
+                    ? LocalDateTime.parse(params.get("after"))
+                    : LocalDateTime.now();
+            int limit = params.containsKey("limit")
+                    ? Integer.parseInt(params.get("limit"))
+                    : DEFAULT_FREE_SLOTS_LIMIT;
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                sendBadRequest(exchange);
+                return;
+            }
+            slots = manager.findFreeSlots(duration, after, limit);
+        } catch (NullPointerException | DateTimeParseException | IllegalArgumentException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendJsonList(exchange, slots);
+    }
 }
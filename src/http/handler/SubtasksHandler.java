@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 public class SubtasksHandler extends BaseHttpHandler {
@@ -37,8 +38,15 @@ public class SubtasksHandler extends BaseHttpHandler {
                             sendNotFound(exchange);
                         }
                     } else {
-                        List<Subtask> subtasks = manager.getSubtasks();
-                        sendText(exchange, gson.toJson(subtasks));
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey("ids")) {
+                            sendByIds(exchange, params.get("ids"), manager::getSubtask);
+                        } else if (params.containsKey("limit")) {
+                            sendPage(exchange, params, manager::getSubtasksPage);
+                        } else {
+                            List<Subtask> subtasks = manager.getSubtasks();
+                            sendJsonList(exchange, subtasks);
+                        }
                     }
                     break;
                 case "POST":
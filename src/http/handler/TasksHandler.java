@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 public class TasksHandler extends BaseHttpHandler {
@@ -37,8 +38,15 @@ public class TasksHandler extends BaseHttpHandler {
                             sendNotFound(exchange);
                         }
                     } else {
-                        List<Task> tasks = manager.getTasks();
-                        sendText(exchange, gson.toJson(tasks));
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey("ids")) {
+                            sendByIds(exchange, params.get("ids"), manager::getTask);
+                        } else if (params.containsKey("limit")) {
+                            sendPage(exchange, params, manager::getTasksPage);
+                        } else {
+                            List<Task> tasks = manager.getTasks();
+                            sendJsonList(exchange, tasks);
+                        }
                     }
                     break;
                 case "POST":
@@ -0,0 +1,122 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Менеджер истории, убирающий запись просмотров с пути чтения задач.
+ * <p>
+ * add и remove только кладут событие в неблокирующую очередь (много производителей) и сразу
+ * возвращаются. События переносит в обёрнутый менеджер единственный потребитель — тот поток,
+ * которому досталась блокировка сброса: getHistory, а также производитель, заметивший, что в очереди
+ * накопилось не меньше drainThreshold событий (он берёт блокировку через tryLock и, если она занята,
+ * просто идёт дальше). Поэтому getTask никогда не ждёт ни истории, ни других читателей, а обёрнутый
+ * менеджер всегда используется из одного потока за раз и сам может быть непотокобезопасным.
+ * <p>
+ * Гарантии порядка для /history:
+ * <ul>
+ *     <li>события применяются в порядке попадания в очередь; события одного потока — в порядке вызовов;</li>
+ *     <li>если вызов add или remove завершился до начала вызова getHistory (в том же или другом потоке),
+ *     его результат виден в возвращённой истории — getHistory сначала сбрасывает очередь;</li>
+ *     <li>просмотр, идущий одновременно с getHistory, может попасть как в этот ответ, так и в следующий;</li>
+ *     <li>в ConcurrentTaskManager просмотр кладётся в очередь под блокировкой чтения, а удаление — под
+ *     блокировкой записи, поэтому просмотр удалённой задачи не может оказаться в очереди после её удаления.</li>
+ * </ul>
+ * Клиент PerClientHistoryManager запоминается в момент просмотра и восстанавливается при переносе.
+ */
+public class AsyncHistoryManager implements HistoryManager {
+    public static final int DEFAULT_DRAIN_THRESHOLD = 1024;
+
+    private final HistoryManager delegate;
+    private final int drainThreshold;
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    public AsyncHistoryManager(HistoryManager delegate) {
+        this(delegate, DEFAULT_DRAIN_THRESHOLD);
+    }
+
+    public AsyncHistoryManager(HistoryManager delegate, int drainThreshold) {
+        if (drainThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сброса должен быть положительным");
+        }
+        this.delegate = delegate;
+        this.drainThreshold = drainThreshold;
+    }
+
+    @Override
+    public void add(Task task) {
+        enqueue(new Event(task, task.getId(), PerClientHistoryManager.getCurrentClient()));
+    }
+
+    @Override
+    public void remove(int id) {
+        enqueue(new Event(null, id, null));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return delegate.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Число событий, ещё не перенесённых в историю
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private void enqueue(Event event) {
+        events.offer(event);
+        if (pending.incrementAndGet() >= drainThreshold && drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    // Перенести накопившиеся события в историю; вызывать под drainLock
+    private void drain() {
+        String ownClient = PerClientHistoryManager.getCurrentClient();
+        int applied = 0;
+        Event event;
+        try {
+            while ((event = events.poll()) != null) {
+                applied++;
+                if (event.task == null) {
+                    delegate.remove(event.id);
+                } else {
+                    PerClientHistoryManager.setCurrentClient(event.client);
+                    delegate.add(event.task);
+                }
+            }
+        } finally {
+            PerClientHistoryManager.setCurrentClient(ownClient);
+            pending.addAndGet(-applied);
+        }
+    }
+
+    // Просмотр задачи или, если task == null, удаление id из истории
+    private static final class Event {
+        final Task task;
+        final int id;
+        final String client;
+
+        Event(Task task, int id, String client) {
+            this.task = task;
+            this.id = id;
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import utils.PersistentTreeMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Неизменяемая версия доски: задачи, эпики и подзадачи по id, приоритетный порядок
+ * и подзадачи каждого эпика. Все коллекции персистентные, поэтому новая версия
+ * после изменения разделяет с предыдущей почти все узлы, а списки отдаются без копирования.
+ */
+public final class BoardSnapshot {
+    // Тот же порядок, что и у getPrioritizedTasks: по времени начала, задачи без времени — в конце
+    static final Comparator<Task> PRIORITY_ORDER = Comparator
+            .comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+
+    static final BoardSnapshot EMPTY = new BoardSnapshot(
+            PersistentTreeMap.empty(),
+            PersistentTreeMap.empty(),
+            PersistentTreeMap.empty(),
+            PersistentTreeMap.empty(PRIORITY_ORDER),
+            PersistentTreeMap.empty());
+
+    final PersistentTreeMap<Integer, Task> tasks;
+    final PersistentTreeMap<Integer, Epic> epics;
+    final PersistentTreeMap<Integer, Subtask> subtasks;
+    final PersistentTreeMap<Task, Task> prioritized;
+    final PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> epicSubtasks;
+
+    BoardSnapshot(PersistentTreeMap<Integer, Task> tasks,
+                  PersistentTreeMap<Integer, Epic> epics,
+                  PersistentTreeMap<Integer, Subtask> subtasks,
+                  PersistentTreeMap<Task, Task> prioritized,
+                  PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> epicSubtasks) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritized = prioritized;
+        this.epicSubtasks = epicSubtasks;
+    }
+
+    public Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        return epics.get(id);
+    }
+
+    public Subtask getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    public List<Task> getTasks() {
+        return tasks.values();
+    }
+
+    public List<Epic> getEpics() {
+        return epics.values();
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritized.values();
+    }
+
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(tasks, afterId, limit);
+    }
+
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epics, afterId, limit);
+    }
+
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return page(subtasks, afterId, limit);
+    }
+
+    // До limit значений с id больше afterId: O(log n + limit) по дереву снимка
+    private static <T> List<T> page(PersistentTreeMap<Integer, T> source, int afterId, int limit) {
+        List<T> result = new ArrayList<>(Math.max(Math.min(limit, source.size()), 0));
+        Iterator<T> iterator = source.valuesAfter(afterId);
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    // Подзадачи эпика в порядке id
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        PersistentTreeMap<Integer, Subtask> members = epicSubtasks.get(epicId);
+        return members != null ? members.values() : Collections.emptyList();
+    }
+}
@@ -0,0 +1,387 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поля задач в столбцах вне кучи (direct ByteBuffer): номер строки — id задачи.
+ * <p>
+ * Каждое поле — отдельный столбец фиксированной ширины: тип и статус (по байту), начало в секундах
+ * эпохи UTC, длительность в минутах, id эпика, две ссылки списка подзадач и ссылки на название
+ * и описание в области строк. Строки лежат там же вне кучи в UTF-8. Объекты Task создаются только
+ * при чтении (materialize), поэтому размер доски почти не влияет на кучу и паузы GC.
+ * <p>
+ * Точность такая же, как у файлов снимка: начало — до секунды, длительность — до минуты.
+ * Подзадачи эпика образуют двусвязный список в порядке добавления: у подзадачи столбцы next/prev —
+ * соседи, у эпика — первая и последняя подзадача. Не потокобезопасно.
+ */
+final class ColumnarTaskStore {
+    static final long NO_TIME = Long.MIN_VALUE;
+    static final int NO_DURATION = Integer.MIN_VALUE;
+    private static final long NO_STRING = -1;
+    private static final byte FREE = 0;
+    private static final int INITIAL_ROWS = 1024;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private int capacity;
+    private ByteBuffer kinds;
+    private ByteBuffer statuses;
+    private ByteBuffer starts;
+    private ByteBuffer durations;
+    private ByteBuffer epicIds;
+    private ByteBuffer nexts;
+    private ByteBuffer prevs;
+    private ByteBuffer names;
+    private ByteBuffer descriptions;
+    private StringArena strings = new StringArena();
+
+    ColumnarTaskStore() {
+        capacity = INITIAL_ROWS;
+        kinds = allocate(capacity);
+        statuses = allocate(capacity);
+        starts = allocate(capacity * 8L);
+        durations = allocate(capacity * 4L);
+        epicIds = allocate(capacity * 4L);
+        nexts = allocate(capacity * 4L);
+        prevs = allocate(capacity * 4L);
+        names = allocate(capacity * 8L);
+        descriptions = allocate(capacity * 8L);
+    }
+
+    // Число строк, которые сейчас помещаются в столбцы (id от 0 до rows() - 1)
+    int rows() {
+        return capacity;
+    }
+
+    // Тип задачи в строке или null, если строка свободна
+    TaskType type(int id) {
+        if (id <= 0 || id >= capacity) {
+            return null;
+        }
+        byte kind = kinds.get(id);
+        return kind == FREE ? null : TYPES[kind - 1];
+    }
+
+    boolean is(int id, TaskType type) {
+        return type(id) == type;
+    }
+
+    // Записать поля задачи в строку её id; связи списка подзадач не меняются
+    void write(Task task) {
+        int id = task.getId();
+        ensureCapacity(id);
+        boolean existed = kinds.get(id) != FREE;
+        kinds.put(id, (byte) (task.getType().ordinal() + 1));
+        statuses.put(id, (byte) (task.getStatus() == null ? -1 : task.getStatus().ordinal()));
+        starts.putLong(id * 8, seconds(task.getStartTime()));
+        durations.putInt(id * 4, minutes(task.getDuration()));
+        epicIds.putInt(id * 4, task instanceof Subtask ? ((Subtask) task).getEpicId() : 0);
+        if (!existed) {
+            nexts.putInt(id * 4, 0);
+            prevs.putInt(id * 4, 0);
+            names.putLong(id * 8, NO_STRING);
+            descriptions.putLong(id * 8, NO_STRING);
+        }
+        names.putLong(id * 8, strings.replace(names.getLong(id * 8), task.getName()));
+        descriptions.putLong(id * 8, strings.replace(descriptions.getLong(id * 8), task.getDescription()));
+    }
+
+    // Освободить строку; id больше не выдаются повторно, поэтому строка остаётся пустой
+    void free(int id) {
+        strings.release(names.getLong(id * 8));
+        strings.release(descriptions.getLong(id * 8));
+        kinds.put(id, FREE);
+        nexts.putInt(id * 4, 0);
+        prevs.putInt(id * 4, 0);
+        if (strings.shouldCompact()) {
+            compactStrings();
+        }
+    }
+
+    long start(int id) {
+        return starts.getLong(id * 8);
+    }
+
+    // Конец интервала в секундах или NO_TIME, если нет начала или длительности
+    long end(int id) {
+        long start = starts.getLong(id * 8);
+        int duration = durations.getInt(id * 4);
+        return start == NO_TIME || duration == NO_DURATION ? NO_TIME : start + duration * 60L;
+    }
+
+    int epicId(int id) {
+        return epicIds.getInt(id * 4);
+    }
+
+    TaskStatus status(int id) {
+        byte status = statuses.get(id);
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    // Первая подзадача эпика или 0
+    int firstSubtask(int epicId) {
+        return nexts.getInt(epicId * 4);
+    }
+
+    // Следующая подзадача того же эпика или 0
+    int nextSubtask(int subtaskId) {
+        return nexts.getInt(subtaskId * 4);
+    }
+
+    // Добавить подзадачу в конец списка эпика
+    void link(int epicId, int subtaskId) {
+        int last = prevs.getInt(epicId * 4);
+        prevs.putInt(subtaskId * 4, last);
+        nexts.putInt(subtaskId * 4, 0);
+        if (last == 0) {
+            nexts.putInt(epicId * 4, subtaskId);
+        } else {
+            nexts.putInt(last * 4, subtaskId);
+        }
+        prevs.putInt(epicId * 4, subtaskId);
+    }
+
+    // Убрать подзадачу из списка эпика, если она в нём состоит
+    void unlink(int epicId, int subtaskId) {
+        if (!is(epicId, TaskType.EPIC)) {
+            return;
+        }
+        int prev = prevs.getInt(subtaskId * 4);
+        int next = nexts.getInt(subtaskId * 4);
+        if (prev == 0 && nexts.getInt(epicId * 4) != subtaskId) {
+            return;
+        }
+        if (prev == 0) {
+            nexts.putInt(epicId * 4, next);
+        } else {
+            nexts.putInt(prev * 4, next);
+        }
+        if (next == 0) {
+            prevs.putInt(epicId * 4, prev);
+        } else {
+            prevs.putInt(next * 4, prev);
+        }
+        nexts.putInt(subtaskId * 4, 0);
+        prevs.putInt(subtaskId * 4, 0);
+    }
+
+    // Отвязать от эпика все подзадачи разом
+    void clearSubtasks(int epicId) {
+        nexts.putInt(epicId * 4, 0);
+        prevs.putInt(epicId * 4, 0);
+    }
+
+    // Собрать объект задачи из столбцов; эпик собирается вместе со своими подзадачами
+    Task materialize(int id) {
+        TaskType type = type(id);
+        if (type == null) {
+            return null;
+        }
+        String name = strings.get(names.getLong(id * 8));
+        String description = strings.get(descriptions.getLong(id * 8));
+        switch (type) {
+            case EPIC:
+                Epic epic = new Epic(id, name, description);
+                for (int sub = firstSubtask(id); sub != 0; sub = nextSubtask(sub)) {
+                    epic.addSubtask((Subtask) materialize(sub));
+                }
+                epic.setStatus(epic.calculateStatus());
+                return epic;
+            case SUBTASK:
+                return new Subtask(id, name, description, status(id), duration(id), startTime(id), epicId(id));
+            case TASK:
+            default:
+                return new Task(id, name, description, status(id), duration(id), startTime(id));
+        }
+    }
+
+    // Байты вне кучи: столбцы и область строк
+    long offHeapBytes() {
+        return (long) capacity * (1 + 1 + 8 + 4 + 4 + 4 + 4 + 8 + 8) + strings.allocatedBytes();
+    }
+
+    static long seconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static int minutes(Duration duration) {
+        return duration == null ? NO_DURATION : Math.toIntExact(duration.toMinutes());
+    }
+
+    // Конец интервала задачи в тех же единицах, в которых он будет храниться
+    static long end(Task task) {
+        long start = seconds(task.getStartTime());
+        int duration = minutes(task.getDuration());
+        return start == NO_TIME || duration == NO_DURATION ? NO_TIME : start + duration * 60L;
+    }
+
+    static LocalDateTime toTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime startTime(int id) {
+        long start = starts.getLong(id * 8);
+        return start == NO_TIME ? null : toTime(start);
+    }
+
+    private Duration duration(int id) {
+        int duration = durations.getInt(id * 4);
+        return duration == NO_DURATION ? null : Duration.ofMinutes(duration);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < capacity) {
+            return;
+        }
+        int newCapacity = capacity;
+        while (newCapacity <= id) {
+            newCapacity = Math.multiplyExact(newCapacity, 2);
+        }
+        kinds = grow(kinds, newCapacity);
+        statuses = grow(statuses, newCapacity);
+        starts = grow(starts, newCapacity * 8L);
+        durations = grow(durations, newCapacity * 4L);
+        epicIds = grow(epicIds, newCapacity * 4L);
+        nexts = grow(nexts, newCapacity * 4L);
+        prevs = grow(prevs, newCapacity * 4L);
+        names = grow(names, newCapacity * 8L);
+        descriptions = grow(descriptions, newCapacity * 8L);
+        capacity = newCapacity;
+    }
+
+    // Переписать живые строки в новую область, чтобы вернуть место, занятое старыми версиями
+    private void compactStrings() {
+        StringArena compacted = new StringArena();
+        for (int id = 1; id < capacity; id++) {
+            if (kinds.get(id) != FREE) {
+                names.putLong(id * 8, compacted.copyFrom(strings, names.getLong(id * 8)));
+                descriptions.putLong(id * 8, compacted.copyFrom(strings, descriptions.getLong(id * 8)));
+            }
+        }
+        strings = compacted;
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        return ByteBuffer.allocateDirect(Math.toIntExact(bytes)).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer grow(ByteBuffer old, long bytes) {
+        ByteBuffer grown = allocate(bytes);
+        grown.put(0, old, 0, old.capacity());
+        return grown;
+    }
+
+    /**
+     * Строки в UTF-8 в кусках памяти вне кучи: [длина int][байты]. Ссылка — номер куска в старших
+     * 32 битах и смещение в младших. Изменённая строка пишется заново, старая остаётся мусором до
+     * сжатия (compactStrings), которое запускается, когда мусора становится больше живых данных.
+     */
+    private static final class StringArena {
+        private static final int FIRST_CHUNK_BYTES = 1 << 16;
+        private static final int CHUNK_BYTES = 1 << 26;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current;
+        private int used;
+        private long allocated;
+        private long live;
+        private long garbage;
+
+        String get(long ref) {
+            if (ref == NO_STRING) {
+                return null;
+            }
+            ByteBuffer chunk = chunks.get((int) (ref >>> 32));
+            int offset = (int) ref;
+            byte[] bytes = new byte[chunk.getInt(offset)];
+            chunk.get(offset + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Ссылка на value; если строка не изменилась, остаётся прежняя ссылка
+        long replace(long ref, String value) {
+            byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            if (bytes == null ? ref == NO_STRING : sameBytes(ref, bytes)) {
+                return ref;
+            }
+            release(ref);
+            return bytes == null ? NO_STRING : append(bytes);
+        }
+
+        void release(long ref) {
+            if (ref != NO_STRING) {
+                int size = 4 + length(ref);
+                live -= size;
+                garbage += size;
+            }
+        }
+
+        long copyFrom(StringArena other, long ref) {
+            if (ref == NO_STRING) {
+                return NO_STRING;
+            }
+            ByteBuffer chunk = other.chunks.get((int) (ref >>> 32));
+            int offset = (int) ref;
+            byte[] bytes = new byte[chunk.getInt(offset)];
+            chunk.get(offset + 4, bytes);
+            return append(bytes);
+        }
+
+        boolean shouldCompact() {
+            return garbage > CHUNK_BYTES && garbage > live;
+        }
+
+        long allocatedBytes() {
+            return allocated;
+        }
+
+        private int length(long ref) {
+            return chunks.get((int) (ref >>> 32)).getInt((int) ref);
+        }
+
+        private boolean sameBytes(long ref, byte[] bytes) {
+            if (ref == NO_STRING || length(ref) != bytes.length) {
+                return false;
+            }
+            ByteBuffer chunk = chunks.get((int) (ref >>> 32));
+            int offset = (int) ref + 4;
+            for (int i = 0; i < bytes.length; i++) {
+                if (chunk.get(offset + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long append(byte[] bytes) {
+            int size = 4 + bytes.length;
+            if (current == null || current.capacity() - used < size) {
+                // Куски растут вдвое до CHUNK_BYTES, чтобы маленькая доска не занимала сразу 64 МБ
+                int next = current == null ? FIRST_CHUNK_BYTES : Math.min(current.capacity() * 2, CHUNK_BYTES);
+                current = allocate(Math.max(next, size));
+                chunks.add(current);
+                allocated += current.capacity();
+                used = 0;
+            }
+            long ref = ((long) (chunks.size() - 1) << 32) | used;
+            current.putInt(used, bytes.length);
+            current.put(used + 4, bytes);
+            used += size;
+            live += size;
+            return ref;
+        }
+    }
+}
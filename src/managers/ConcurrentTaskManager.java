@@ -0,0 +1,224 @@
+package managers;
+
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный менеджер задач для многопоточного HTTP-сервера.
+ * <p>
+ * Чтения выполняются параллельно под блокировкой чтения. Любое изменение затрагивает
+ * общий индекс интервалов или агрегаты эпика, поэтому изменения выполняются под блокировкой
+ * записи. Id выдаются атомарным счётчиком, история просмотров защищена отдельным монитором,
+ * так как её меняют и операции чтения; AsyncHistoryManager потокобезопасен сам и не оборачивается.
+ * <p>
+ * Сами объекты задач по-прежнему общие: возвращённую задачу нельзя менять без вызова update.
+ * Исключение — эпики: менеджер меняет их на месте при изменении подзадач, а ответ сериализуется
+ * уже вне блокировки, поэтому эпики (в том числе в истории) отдаются копиями, снятыми под блокировкой чтения.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager instanceof AsyncHistoryManager
+                ? historyManager
+                : new SynchronizedHistoryManager(historyManager));
+    }
+
+    // Выполнить действие под блокировкой чтения
+    protected <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Выполнить действие под блокировкой записи
+    protected <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(() -> {
+            Epic epic = super.getEpic(id);
+            return epic != null ? epic.copy() : null;
+        });
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return read(() -> super.getSubtask(id));
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(super::getTasks);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return read(() -> copyEpics(super.getEpics()));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(super::getSubtasks);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return read(() -> super.getTasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return read(() -> copyEpics(super.getEpicsPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return read(() -> super.getSubtasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> super.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(super::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> {
+            List<Task> history = new ArrayList<>(super.getHistory());
+            for (int i = 0; i < history.size(); i++) {
+                if (history.get(i) instanceof Epic) {
+                    history.set(i, ((Epic) history.get(i)).copy());
+                }
+            }
+            return history;
+        });
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime after, int limit) {
+        return read(() -> super.findFreeSlots(duration, after, limit));
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return write(() -> super.addNewTask(task));
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        return write(() -> super.addNewEpic(epic));
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        return write(() -> super.addNewSubtask(subtask));
+    }
+
+    @Override
+    public BatchResult addNewTasks(List<Task> batch) {
+        return write(() -> super.addNewTasks(batch));
+    }
+
+    @Override
+    public BatchResult addNewEpics(List<Epic> batch) {
+        return write(() -> super.addNewEpics(batch));
+    }
+
+    @Override
+    public BatchResult addNewSubtasks(List<Subtask> batch) {
+        return write(() -> super.addNewSubtasks(batch));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public void removeTask(int id) {
+        write(() -> super.removeTask(id));
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        write(() -> super.removeEpic(id));
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        write(() -> super.removeSubtask(id));
+    }
+
+    @Override
+    public void removeAllTasks() {
+        write(super::removeAllTasks);
+    }
+
+    @Override
+    public void removeAllEpics() {
+        write(super::removeAllEpics);
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        write(super::removeAllSubtasks);
+    }
+
+    // Заменить эпики списка их копиями; вызывать под блокировкой
+    private static List<Epic> copyEpics(List<Epic> epics) {
+        for (int i = 0; i < epics.size(); i++) {
+            epics.set(i, epics.get(i).copy());
+        }
+        return epics;
+    }
+}
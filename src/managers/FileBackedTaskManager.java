@@ -1,31 +1,446 @@
 package managers;
 
 import tasks.*;
-import utils.CsvUtil;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Менеджер, сохраняющий задачи в файл снимка (CSV или двоичный, см. SnapshotFormat).
+ * <p>
+ * Потокобезопасен: изменение в памяти и постановка записи в журнал выполняются под блокировкой записи,
+ * поэтому порядок записей совпадает с порядком изменений. Подтверждения записи (fsync) поток ждёт
+ * уже после снятия блокировки — так записи параллельных запросов попадают в одну пачку журнала,
+ * а метод возвращает управление только после того, как его пачка стала надёжной.
+ * <p>
+ * История просмотров в снимок не входит: просмотры копятся в памяти и в фоне дописываются в поток
+ * событий рядом с файлом (file + ".history", см. HistoryLog), который сжимается до последних просмотров
+ * и восстанавливается в loadFromFile.
+ */
+public class FileBackedTaskManager extends ConcurrentTaskManager {
+    /**
+     * Способ сохранения изменений.
+     * SNAPSHOT — каждое изменение полностью перезаписывает файл снимка;
+     * WRITE_AHEAD_LOG — изменение дописывает одну запись в журнал рядом с файлом (file + ".log"),
+     * а полный снимок пишется при checkpoint() или компакции. При загрузке журнал применяется поверх снимка;
+     * ASYNC_SNAPSHOT — изменение только помечает менеджер изменённым, а фоновый поток записывает
+     * один снимок на серию изменений: через saveDelayMillis после первого из них или сразу,
+     * как только их накопилось saveBatchSize. Несохранённое при сбое процесса теряется;
+     * flush() дожидается записи.
+     */
+    public enum PersistenceMode {
+        SNAPSHOT,
+        WRITE_AHEAD_LOG,
+        ASYNC_SNAPSHOT
+    }
+
+    /**
+     * Формат файла снимка.
+     * CSV — текст, читаемый человеком; BINARY — компактный двоичный формат (см. BinaryTaskCodec);
+     * BINARY_DEFLATE — он же с поблочным сжатием. Загрузка определяет формат файла сама.
+     */
+    public enum SnapshotFormat {
+        CSV,
+        BINARY,
+        BINARY_DEFLATE
+    }
+
+    public static final long DEFAULT_SAVE_DELAY_MILLIS = 100;
+    public static final int DEFAULT_SAVE_BATCH_SIZE = 1000;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
+    private final PersistenceMode mode;
+    private final SnapshotFormat format;
+    private final WriteAheadLog log;
+    // История просмотров: поток событий в file + ".history", отдельно от снимка
+    private final HistoryLog historyLog;
+    // Фоновая запись снимка для ASYNC_SNAPSHOT
+    private final ScheduledExecutorService saver;
+    private final long saveDelayMillis;
+    private final int saveBatchSize;
+    // Несохранённые изменения и запланированная запись; меняются под блокировкой записи,
+    // поток записи сбрасывает их под блокировкой чтения (в это время изменений нет)
+    private int unsavedChanges;
+    private boolean saveScheduled;
+    // Последняя запись журнала, поставленная текущим потоком и ещё не подтверждённая
+    private final ThreadLocal<CompletableFuture<Void>> pendingCommit = new ThreadLocal<>();
+    // Не даёт двум компакциям (или компакции и checkpoint) писать снимок одновременно
+    private final Object compactionMonitor = new Object();
+    private ScheduledExecutorService compactor;
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
+        this(file, mode, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format) {
+        this(file, mode, format, GroupCommitWriter.Durability.FSYNC_PER_BATCH, WriteAheadLog.DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode,
+                                 GroupCommitWriter.Durability durability, long syncIntervalMillis) {
+        this(file, mode, SnapshotFormat.CSV, durability, syncIntervalMillis);
+    }
+
+    /**
+     * @param format             формат, в котором пишется снимок
+     * @param durability         уровень надёжности записей журнала (только для WRITE_AHEAD_LOG)
+     * @param syncIntervalMillis интервал fsync для {@link GroupCommitWriter.Durability#FSYNC_INTERVAL}
+     */
+    public FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format,
+                                 GroupCommitWriter.Durability durability, long syncIntervalMillis) {
+        this(file, mode, format, durability, syncIntervalMillis, DEFAULT_SAVE_DELAY_MILLIS, DEFAULT_SAVE_BATCH_SIZE);
+    }
+
+    /**
+     * Менеджер в режиме ASYNC_SNAPSHOT.
+     *
+     * @param saveDelayMillis через сколько миллисекунд после первого несохранённого изменения писать снимок
+     * @param saveBatchSize   после скольких несохранённых изменений писать снимок, не дожидаясь задержки
+     */
+    public FileBackedTaskManager(File file, SnapshotFormat format, long saveDelayMillis, int saveBatchSize) {
+        this(file, PersistenceMode.ASYNC_SNAPSHOT, format, GroupCommitWriter.Durability.FSYNC_PER_BATCH,
+                WriteAheadLog.DEFAULT_SYNC_INTERVAL_MILLIS, saveDelayMillis, saveBatchSize);
+    }
+
+    private FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format,
+                                  GroupCommitWriter.Durability durability, long syncIntervalMillis,
+                                  long saveDelayMillis, int saveBatchSize) {
+        this(file, mode, format, durability, syncIntervalMillis, saveDelayMillis, saveBatchSize,
+                new HistoryLog(Managers.getDefaultHistory(), new File(file.getPath() + ".history")));
+    }
+
+    private FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format,
+                                  GroupCommitWriter.Durability durability, long syncIntervalMillis,
+                                  long saveDelayMillis, int saveBatchSize, HistoryLog historyLog) {
+        super(historyLog);
+        if (saveDelayMillis < 0 || saveBatchSize <= 0) {
+            throw new IllegalArgumentException("Задержка записи не может быть отрицательной, размер серии — меньше 1");
+        }
         this.file = file;
+        this.mode = mode;
+        this.format = format;
+        this.log = mode == PersistenceMode.WRITE_AHEAD_LOG
+                ? new WriteAheadLog(new File(file.getPath() + ".log"), durability, syncIntervalMillis)
+                : null;
+        this.saveDelayMillis = saveDelayMillis;
+        this.saveBatchSize = saveBatchSize;
+        this.historyLog = historyLog;
+        this.saver = mode == PersistenceMode.ASYNC_SNAPSHOT
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "snapshot-writer-" + file.getName());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
     }
 
-    // Сохраняет все задачи в файл
+    // Сохраняет все задачи в файл: пишет во временный файл и атомарно заменяет им основной
     protected void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write(CsvUtil.HEADER);
-            writer.newLine();
-            for (Task task : getAllTasks()) {
-                writer.write(CsvUtil.toCsv(task));
-                writer.newLine();
+        writeSnapshot(getAllTasks(), false);
+    }
+
+    // Записать задачи во временный файл и атомарно заменить им основной; sync — fsync перед заменой
+    private void writeSnapshot(Collection<Task> state, boolean sync) {
+        Path target = file.toPath();
+        Path temp = Paths.get(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16)) {
+            SnapshotIO.write(buffered, state, format);
+            buffered.flush();
+            if (sync) {
+                out.getFD().sync();
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения в файл", e);
         }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения в файл", e);
+        }
+    }
+
+    // Записать полный снимок и очистить журнал, остановив изменения на время записи
+    // (в режимах без журнала — просто сохранить)
+    public void checkpoint() {
+        synchronized (compactionMonitor) {
+            write(() -> {
+                if (log == null) {
+                    save();
+                    unsavedChanges = 0;
+                    return;
+                }
+                writeSnapshot(getAllTasks(), true);
+                log.truncate();
+                log.deleteSealed();
+            });
+        }
+    }
+
+    /**
+     * Компакция журнала без остановки изменений.
+     * <p>
+     * Под блокировкой записи берётся список ссылок на задачи (точка снимка) и закрывается активный
+     * сегмент журнала — это O(n) копирование ссылок без ввода-вывода данных. Дальше снимок пишется
+     * в файл уже без блокировки, пока новые изменения идут в новый сегмент. После атомарной замены
+     * файла снимка закрытый сегмент удаляется.
+     * <p>
+     * Менеджер не меняет сохранённые задачи на месте (обновление кладёт новый объект), кроме
+     * вычисляемых полей эпика, которые всё равно пересчитываются при загрузке. Поэтому запись снимка
+     * вне блокировки даёт состояние на момент точки снимка. Если сбой случится до удаления закрытого
+     * сегмента, он будет повторно применён к новому снимку — записи журнала идемпотентны.
+     */
+    public void compact() {
+        if (saver != null) {
+            flush();
+            return;
+        }
+        synchronized (compactionMonitor) {
+            if (log == null) {
+                write(this::save);
+                return;
+            }
+            List<Task> state = write(() -> {
+                List<Task> copy = getAllTasks();
+                log.rotate();
+                return copy;
+            });
+            writeSnapshot(state, true);
+            log.deleteSealed();
+        }
+    }
+
+    /**
+     * Запустить фоновую компакцию: раз в checkIntervalMillis проверять размер журнала и сжимать его,
+     * когда он не меньше minLogBytes и не меньше файла снимка. Так журнал не бывает больше снимка
+     * (плюс то, что накопилось между проверками), и время загрузки зависит от числа живых задач,
+     * а не от длины истории изменений.
+     */
+    public synchronized void startBackgroundCompaction(long checkIntervalMillis, long minLogBytes) {
+        if (log == null) {
+            throw new IllegalStateException("Компакция нужна только в режиме WRITE_AHEAD_LOG");
+        }
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-compactor-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            long logSize = log.size();
+            if (logSize < minLogBytes || logSize < file.length()) {
+                return;
+            }
+            try {
+                compact();
+            } catch (ManagerSaveException e) {
+                // Журнал и старый снимок остаются согласованными; повторим на следующей проверке
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Дождаться, пока все сделанные до вызова изменения будут записаны в файл; вместе с ними
+     * на диск попадают и накопленные просмотры истории. В режиме ASYNC_SNAPSHOT пишет снимок, если есть несохранённые изменения; в остальных режимах
+     * изменения уже сохранены к моменту возврата из метода, поэтому flush() дописывает только историю.
+     *
+     * @throws ManagerSaveException если запись не удалась (изменения остаются помеченными и будут записаны позже)
+     *                              или с прошлого вызова не удалась фоновая запись истории
+     */
+    public void flush() {
+        try {
+            flushSnapshot();
+        } finally {
+            historyLog.flush();
+        }
+    }
+
+    private void flushSnapshot() {
+        if (saver == null) return;
+        try {
+            saver.submit(this::saveIfChanged).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ManagerSaveException) {
+                throw (ManagerSaveException) e.getCause();
+            }
+            throw new ManagerSaveException("Ошибка сохранения в файл", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Ожидание записи прервано", e);
+        }
+    }
+
+    // Пометить менеджер изменённым и запланировать фоновую запись; вызывается под блокировкой записи
+    private void markChanged() {
+        unsavedChanges++;
+        if (unsavedChanges == saveBatchSize) {
+            saver.execute(this::saveIfChanged);
+            saveScheduled = true;
+        } else if (!saveScheduled) {
+            saver.schedule(this::saveIfChanged, saveDelayMillis, TimeUnit.MILLISECONDS);
+            saveScheduled = true;
+        }
+    }
+
+    // Выполняется в потоке записи: одна запись снимка на все накопившиеся изменения.
+    // Снимок — список ссылок, взятый под блокировкой чтения; сам файл пишется без блокировки
+    private void saveIfChanged() {
+        synchronized (compactionMonitor) {
+            int[] saved = {0};
+            List<Task> state = read(() -> {
+                saved[0] = unsavedChanges;
+                unsavedChanges = 0;
+                saveScheduled = false;
+                return saved[0] == 0 ? null : getAllTasks();
+            });
+            if (state == null) return;
+            try {
+                writeSnapshot(state, false);
+                snapshotSaved(saved[0]);
+            } catch (ManagerSaveException e) {
+                write(() -> {
+                    unsavedChanges += saved[0];
+                    if (!saveScheduled) {
+                        saver.schedule(this::saveIfChanged, saveDelayMillis, TimeUnit.MILLISECONDS);
+                        saveScheduled = true;
+                    }
+                });
+                throw e;
+            }
+        }
+    }
+
+    // Вызывается в потоке записи после каждого снимка ASYNC_SNAPSHOT; changes — сколько изменений он сохранил
+    protected void snapshotSaved(int changes) {
+    }
+
+    // Дописать несохранённое и историю, остановить фоновые потоки (компакцию, запись снимка, журнал)
+    public void close() {
+        try {
+            if (saver != null) {
+                try {
+                    flushSnapshot();
+                } finally {
+                    saver.shutdown();
+                }
+            }
+            synchronized (this) {
+                if (compactor != null) {
+                    compactor.shutdown();
+                    try {
+                        compactor.awaitTermination(1, TimeUnit.MINUTES);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    compactor = null;
+                }
+            }
+        } finally {
+            // История и журнал закрываются, даже если снимок записать не удалось
+            try {
+                historyLog.close();
+            } finally {
+                closeLog();
+            }
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала", e);
+        }
+    }
+
+    // Суммарный размер журнала в байтах (0 в режиме SNAPSHOT)
+    public long getLogSize() {
+        return log != null ? log.size() : 0;
+    }
+
+    // Без журнала: сразу переписать снимок или, в ASYNC_SNAPSHOT, отложить запись
+    private void persistSnapshot() {
+        if (mode == PersistenceMode.ASYNC_SNAPSHOT) {
+            markChanged();
+        } else {
+            save();
+        }
+    }
+
+    // Зафиксировать добавление или обновление задачи
+    protected void persistPut(Task task) {
+        if (log == null) {
+            persistSnapshot();
+        } else {
+            pendingCommit.set(log.append(WriteAheadLog.putRecord(task)));
+        }
+    }
+
+    // Зафиксировать добавление принятого пакета; отклонённый пакет ничего не меняет
+    protected void persistPutAll(BatchResult result, List<? extends Task> batch) {
+        if (!result.isAccepted() || batch.isEmpty()) {
+            return;
+        }
+        if (log == null) {
+            persistSnapshot();
+            return;
+        }
+        // Записи встают в очередь подряд и попадают в одну пачку; достаточно дождаться последней
+        for (Task task : batch) {
+            pendingCommit.set(log.append(WriteAheadLog.putRecord(task)));
+        }
+    }
+
+    // Зафиксировать удаление задачи по id
+    protected void persistRemove(TaskType type, int id) {
+        if (log == null) {
+            persistSnapshot();
+        } else {
+            pendingCommit.set(log.append(WriteAheadLog.removeRecord(type, id)));
+        }
+    }
+
+    // Зафиксировать удаление всех задач типа
+    protected void persistClear(TaskType type) {
+        if (log == null) {
+            persistSnapshot();
+        } else {
+            pendingCommit.set(log.append(WriteAheadLog.clearRecord(type)));
+        }
+    }
+
+    // Выполнить изменение под блокировкой записи, затем без блокировки дождаться подтверждения журнала
+    private <T> T durably(Supplier<T> mutation) {
+        try {
+            return write(mutation);
+        } finally {
+            CompletableFuture<Void> commit = pendingCommit.get();
+            if (commit != null) {
+                pendingCommit.remove();
+                WriteAheadLog.await(commit);
+            }
+        }
+    }
+
+    private void durably(Runnable mutation) {
+        durably(() -> {
+            mutation.run();
+            return null;
+        });
     }
 
     // Получить все задачи в одном списке (tasks + epics + subtasks)
@@ -37,122 +452,197 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return result;
     }
 
-    // Загружает все задачи из файла
+    // Загружает все задачи из файла, применяет журнал изменений и восстанавливает историю просмотров
     public void loadFromFile() {
+        write(() -> {
+            Map<Integer, Task> records = new LinkedHashMap<>();
+            readSnapshot(records);
+            if (log != null) {
+                reserveId(log.replay(records));
+            }
+            restore(records);
+            historyLog.load(this::findTask);
+        });
+    }
+
+    // Задача любого типа по id или null
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) task = epics.get(id);
+        if (task == null) task = subtasks.get(id);
+        return task;
+    }
+
+    // Прочитать снимок потоково (CSV — через отображение файла в память, двоичный — по блокам);
+    // записи не накапливаются в списке
+    private void readSnapshot(Map<Integer, Task> records) {
         if (!Files.exists(file.toPath())) return;
         try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.size() < 2) return; // Нет задач
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.trim().isEmpty()) continue;
-                String[] fields = line.split(",", -1);
-                TaskType type = TaskType.valueOf(fields[1]);
-                int id = Integer.parseInt(fields[0]);
-                if (id >= currentId) currentId = id + 1;
-
-                switch (type) {
-                    case TASK:
-                        Task task = CsvUtil.fromCsvTask(line);
-                        tasks.put(task.getId(), task);
-                        addToPrioritized(task);
-                        break;
-                    case EPIC:
-                        Epic epic = (Epic) CsvUtil.fromCsvTask(line);
-                        epics.put(epic.getId(), epic);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) CsvUtil.fromCsvTask(line);
-                        subtasks.put(subtask.getId(), subtask);
-                        addToPrioritized(subtask);
-                        Epic parentEpic = epics.get(subtask.getEpicId());
-                        if (parentEpic != null) {
-                            parentEpic.addSubtask(subtask);
-                        }
-                        break;
-                }
-            }
-            // После загрузки пересчитать время и статус эпиков
-            for (Epic epic : epics.values()) {
-                updateEpicStatus(epic);
-            }
+            SnapshotIO.read(file.toPath(), task -> records.put(task.getId(), task));
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки задач из файла", e);
         }
     }
 
+    // Разложить загруженные записи по структурам менеджера.
+    // Расписание проверяется на пересечения одним проходом после сортировки, O(n log n)
+    private void restore(Map<Integer, Task> records) {
+        List<Task> scheduled = new ArrayList<>(records.size());
+        for (Task task : records.values()) {
+            reserveId(task.getId());
+            switch (task.getType()) {
+                case TASK:
+                    tasks.put(task.getId(), task);
+                    scheduled.add(task);
+                    break;
+                case EPIC:
+                    epics.put(task.getId(), (Epic) task);
+                    break;
+                default:
+                    break;
+            }
+        }
+        // Подзадачи — после эпиков; подзадачи удалённых эпиков отбрасываются
+        for (Task task : records.values()) {
+            if (task.getType() != TaskType.SUBTASK) continue;
+            Subtask subtask = (Subtask) task;
+            Epic parentEpic = epics.get(subtask.getEpicId());
+            if (parentEpic == null) continue;
+            subtasks.put(subtask.getId(), subtask);
+            scheduled.add(subtask);
+            parentEpic.addSubtask(subtask);
+        }
+        addAllToPrioritized(scheduled);
+        // После загрузки пересчитать статус эпиков
+        for (Epic epic : epics.values()) {
+            updateEpicStatus(epic);
+        }
+    }
+
     @Override
     public int addNewTask(Task task) {
-        int id = super.addNewTask(task);
-        save();
-        return id;
+        return durably(() -> {
+            int id = super.addNewTask(task);
+            persistPut(task);
+            return id;
+        });
     }
 
     @Override
     public int addNewEpic(Epic epic) {
-        int id = super.addNewEpic(epic);
-        save();
-        return id;
+        return durably(() -> {
+            int id = super.addNewEpic(epic);
+            persistPut(epic);
+            return id;
+        });
     }
 
     @Override
     public int addNewSubtask(Subtask subtask) {
-        int id = super.addNewSubtask(subtask);
-        save();
-        return id;
+        return durably(() -> {
+            int id = super.addNewSubtask(subtask);
+            persistPut(subtask);
+            return id;
+        });
+    }
+
+    // Пакет сохраняется один раз: одна перезапись снимка или записи журнала одной пачкой
+    @Override
+    public BatchResult addNewTasks(List<Task> batch) {
+        return durably(() -> {
+            BatchResult result = super.addNewTasks(batch);
+            persistPutAll(result, batch);
+            return result;
+        });
+    }
+
+    @Override
+    public BatchResult addNewEpics(List<Epic> batch) {
+        return durably(() -> {
+            BatchResult result = super.addNewEpics(batch);
+            persistPutAll(result, batch);
+            return result;
+        });
+    }
+
+    @Override
+    public BatchResult addNewSubtasks(List<Subtask> batch) {
+        return durably(() -> {
+            BatchResult result = super.addNewSubtasks(batch);
+            persistPutAll(result, batch);
+            return result;
+        });
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        durably(() -> {
+            super.updateTask(task);
+            persistPut(task);
+        });
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        durably(() -> {
+            super.updateEpic(epic);
+            persistPut(epic);
+        });
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        durably(() -> {
+            super.updateSubtask(subtask);
+            persistPut(subtask);
+        });
     }
 
     @Override
     public void removeTask(int id) {
-        super.removeTask(id);
-        save();
+        durably(() -> {
+            super.removeTask(id);
+            persistRemove(TaskType.TASK, id);
+        });
     }
 
     @Override
     public void removeEpic(int id) {
-        super.removeEpic(id);
-        save();
+        durably(() -> {
+            super.removeEpic(id);
+            persistRemove(TaskType.EPIC, id);
+        });
     }
 
     @Override
     public void removeSubtask(int id) {
-        super.removeSubtask(id);
-        save();
+        durably(() -> {
+            super.removeSubtask(id);
+            persistRemove(TaskType.SUBTASK, id);
+        });
     }
 
     @Override
     public void removeAllTasks() {
-        super.removeAllTasks();
-        save();
+        durably(() -> {
+            super.removeAllTasks();
+            persistClear(TaskType.TASK);
+        });
     }
 
     @Override
     public void removeAllEpics() {
-        super.removeAllEpics();
-        save();
+        durably(() -> {
+            super.removeAllEpics();
+            persistClear(TaskType.EPIC);
+        });
     }
 
     @Override
     public void removeAllSubtasks() {
-        super.removeAllSubtasks();
-        save();
+        durably(() -> {
+            super.removeAllSubtasks();
+            persistClear(TaskType.SUBTASK);
+        });
     }
 }
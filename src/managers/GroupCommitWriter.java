@@ -0,0 +1,257 @@
+package managers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись в файл с групповой фиксацией.
+ * <p>
+ * Потоки кладут записи в очередь и получают CompletableFuture. Отдельный поток забирает из очереди
+ * всё, что накопилось, пишет пачку одним вызовом write и, в зависимости от уровня надёжности,
+ * вызывает fsync один раз на всю пачку. Future завершается, только когда запись надёжна
+ * в смысле выбранного уровня, поэтому параллельные запросы делят между собой один fsync.
+ * <p>
+ * При ошибке ввода-вывода future всех неподтверждённых записей завершаются с ошибкой, а файл
+ * обрезается до конца последней подтверждённой записи, чтобы следующая пачка не легла после
+ * оборванной строки. Если обрезать не удалось, писатель останавливается насовсем: дальнейшие
+ * записи сразу получают ту же ошибку.
+ */
+public class GroupCommitWriter implements Closeable {
+    /**
+     * FSYNC_PER_BATCH — fsync после каждой пачки, подтверждение после fsync;
+     * FSYNC_INTERVAL — fsync не чаще раза в заданный интервал, подтверждение после ближайшего fsync;
+     * OS_BUFFERED — без fsync, подтверждение после передачи данных ОС (переживает падение процесса,
+     * но не системы).
+     */
+    public enum Durability {
+        FSYNC_PER_BATCH,
+        FSYNC_INTERVAL,
+        OS_BUFFERED
+    }
+
+    // Сколько close ждёт пишущий поток
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long syncIntervalNanos;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean closed;
+    // Ошибка, остановившая писатель насовсем; под монитором объекта
+    private IOException failure;
+    // Конец последней подтверждённой записи; меняется только пишущим потоком
+    private long committed;
+
+    public GroupCommitWriter(Path path, Durability durability, long syncIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.durability = durability;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.committed = channel.size();
+        this.worker = new Thread(this::run, "group-commit-" + path.getFileName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Поставить строку в очередь на запись; future завершится, когда она станет надёжной
+    public CompletableFuture<Void> append(String line) {
+        return enqueue(new Entry(EntryKind.RECORD, (line + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Обрезать файл до нуля после всех ранее поставленных записей
+    public CompletableFuture<Void> truncate() {
+        return enqueue(new Entry(EntryKind.TRUNCATE, null));
+    }
+
+    // Дождаться надёжной записи всего, что уже поставлено в очередь
+    public CompletableFuture<Void> sync() {
+        return enqueue(new Entry(EntryKind.SYNC, null));
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(Entry entry) {
+        if (closed) {
+            throw new IllegalStateException("Журнал закрыт");
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        queue.add(entry);
+        return entry.done;
+    }
+
+    // Дописывает очередь и останавливает пишущий поток; ждёт его не дольше CLOSE_TIMEOUT_MILLIS
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(new Entry(EntryKind.STOP, null));
+        }
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            // Зависшая запись прервётся закрытием канала, её future завершатся с ошибкой
+            worker.interrupt();
+        }
+        channel.close();
+    }
+
+    // Остановить писатель насовсем: всё, что ещё в очереди, и все следующие записи получают ошибку
+    private synchronized void failPermanently(IOException e) {
+        failure = e;
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.done.completeExceptionally(e);
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        List<Entry> unsynced = new ArrayList<>();
+        long lastSync = System.nanoTime();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                Entry first;
+                if (unsynced.isEmpty()) {
+                    first = queue.take();
+                } else {
+                    long wait = syncIntervalNanos - (System.nanoTime() - lastSync);
+                    first = queue.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+                }
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+            }
+            // STOP останавливает поток, даже если запись пачки ниже не удастся
+            for (Entry entry : batch) {
+                if (entry.kind == EntryKind.STOP) {
+                    stop = true;
+                }
+            }
+            try {
+                boolean forceSync = false;
+                ByteBuffer buffer = ByteBuffer.allocate(batchSize(batch));
+                for (Entry entry : batch) {
+                    switch (entry.kind) {
+                        case RECORD:
+                            buffer.put(entry.data);
+                            unsynced.add(entry);
+                            break;
+                        case TRUNCATE:
+                            writeFully(buffer);
+                            channel.truncate(0);
+                            committed = 0;
+                            unsynced.add(entry);
+                            forceSync = true;
+                            break;
+                        case SYNC:
+                            unsynced.add(entry);
+                            forceSync = true;
+                            break;
+                        case STOP:
+                            unsynced.add(entry);
+                            forceSync = true;
+                            break;
+                    }
+                }
+                writeFully(buffer);
+                batch.clear();
+                boolean due = System.nanoTime() - lastSync >= syncIntervalNanos;
+                if (durability == Durability.FSYNC_PER_BATCH
+                        || (durability == Durability.FSYNC_INTERVAL && (due || forceSync))) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    committed = channel.size();
+                    completeAll(unsynced);
+                } else if (durability == Durability.OS_BUFFERED) {
+                    if (forceSync) {
+                        channel.force(false);
+                    }
+                    committed = channel.size();
+                    completeAll(unsynced);
+                }
+            } catch (IOException e) {
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(e);
+                }
+                for (Entry entry : unsynced) {
+                    entry.done.completeExceptionally(e);
+                }
+                batch.clear();
+                unsynced.clear();
+                // Убрать из файла неподтверждённые и, возможно, оборванные записи
+                try {
+                    channel.truncate(committed);
+                } catch (IOException truncateError) {
+                    e.addSuppressed(truncateError);
+                    failPermanently(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int batchSize(List<Entry> batch) {
+        int size = 0;
+        for (Entry entry : batch) {
+            if (entry.data != null) {
+                size += entry.data.length;
+            }
+        }
+        return size;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void completeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            entry.done.complete(null);
+        }
+        entries.clear();
+    }
+
+    private enum EntryKind {
+        RECORD,
+        TRUNCATE,
+        SYNC,
+        STOP
+    }
+
+    private static final class Entry {
+        final EntryKind kind;
+        final byte[] data;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(EntryKind kind, byte[] data) {
+            this.kind = kind;
+            this.data = data;
+        }
+    }
+}
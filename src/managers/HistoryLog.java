@@ -0,0 +1,289 @@
+package managers;
+
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Менеджер истории, сохраняющий каждое изменение истории в файл, чтобы она переживала перезапуск.
+ * <p>
+ * Файл — поток событий, по одной строке на событие: {@code <id>} — просмотр, {@code -<id>} — удаление
+ * из истории. add и remove только кладут событие в массив в памяти — ни записи в файл, ни ожидания
+ * ввода-вывода на пути чтения. Накопленное дописывает в файл общий фоновый поток history-writer:
+ * через flushDelayMillis после первого незаписанного события или сразу, как только их набралось
+ * FLUSH_BATCH (как запись снимка в ASYNC_SNAPSHOT). Без fsync: при сбое процесса теряются лишь
+ * последние просмотры. Ошибка фоновой записи не доходит до читателя: она запоминается и бросается
+ * как ManagerSaveException из ближайшего flush() или close(), а следующая запись целиком переписывает
+ * файл текущей историей.
+ * <p>
+ * Когда в файл дописано compactThreshold событий, при следующей записи он атомарно заменяется текущей
+ * историей — последними N просмотренными id, от старых к новым. При загрузке события повторно
+ * применяются к обёрнутому менеджеру, и история совпадает с той, что была до остановки.
+ * После close события больше не сохраняются.
+ * <p>
+ * События и обёрнутый менеджер защищены монитором объекта, ввод-вывод идёт вне его под отдельной
+ * блокировкой, поэтому запись файла не задерживает читателей.
+ */
+public class HistoryLog implements HistoryManager, Closeable {
+    public static final int DEFAULT_COMPACT_THRESHOLD = 10_000;
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 1000;
+    // Столько незаписанных событий отправляются в фоновый поток, не дожидаясь задержки
+    private static final int FLUSH_BATCH = 4096;
+
+    // Один поток записи на все истории процесса
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HistoryManager delegate;
+    private final File file;
+    private final int compactThreshold;
+    private final long flushDelayMillis;
+    // Порядок записей в файл: одновременно пишет только один поток
+    private final Object ioLock = new Object();
+
+    // Поля ниже — под монитором объекта.
+    // Незаписанные события: id — просмотр, -id — удаление
+    private int[] pending = new int[16];
+    private int pendingCount;
+    private boolean writeScheduled;
+    private boolean batchSubmitted;
+    // Событий в файле с последней компакции; переписать файл целиком при следующей записи
+    private int written;
+    private boolean rewriteNeeded;
+    private boolean closed;
+    // Ошибка фоновой записи, о которой ещё не сообщил flush()
+    private ManagerSaveException backgroundFailure;
+
+    public HistoryLog(HistoryManager delegate, File file) {
+        this(delegate, file, DEFAULT_COMPACT_THRESHOLD, DEFAULT_FLUSH_DELAY_MILLIS);
+    }
+
+    public HistoryLog(HistoryManager delegate, File file, int compactThreshold, long flushDelayMillis) {
+        if (compactThreshold <= 0 || flushDelayMillis < 0) {
+            throw new IllegalArgumentException("Порог компакции должен быть положительным, задержка записи — неотрицательной");
+        }
+        this.delegate = delegate;
+        this.file = file;
+        this.compactThreshold = compactThreshold;
+        this.flushDelayMillis = flushDelayMillis;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+        record(task.getId());
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+        record(-id);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    /**
+     * Восстановить историю из файла и сразу сжать его.
+     * <p>
+     * Просмотр задачи, которой уже нет, применяется с задачей-заглушкой: она занимает место в истории
+     * и вытесняет старые просмотры так же, как до перезапуска. Заглушки, чьё удаление не успело
+     * попасть в файл, убираются в конце. Недописанная при сбое последняя строка пропускается.
+     *
+     * @param lookup задача по id или null, если её нет
+     */
+    public void load(IntFunction<Task> lookup) {
+        synchronized (this) {
+            if (file.exists()) {
+                try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int id;
+                        try {
+                            id = Integer.parseInt(line);
+                        } catch (NumberFormatException e) {
+                            continue;
+                        }
+                        if (id < 0) {
+                            delegate.remove(-id);
+                            continue;
+                        }
+                        Task task = lookup.apply(id);
+                        delegate.add(task != null ? task : new Task(id, "", "", TaskStatus.NEW, null, null));
+                    }
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Ошибка загрузки истории из файла", e);
+                }
+            }
+            for (Task task : delegate.getHistory()) {
+                if (lookup.apply(task.getId()) == null) {
+                    delegate.remove(task.getId());
+                }
+            }
+            pendingCount = 0;
+            rewriteNeeded = true;
+        }
+        flush();
+    }
+
+    /**
+     * Записать в файл все события, сделанные до вызова, и сжать файл, если пора.
+     *
+     * @throws ManagerSaveException если запись не удалась или с прошлого вызова не удалась фоновая
+     *                              запись (следующая запись перепишет файл целиком)
+     */
+    public void flush() {
+        ManagerSaveException failure;
+        synchronized (this) {
+            failure = backgroundFailure;
+            backgroundFailure = null;
+        }
+        try {
+            write();
+        } catch (ManagerSaveException e) {
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+        if (failure != null) {
+            throw new ManagerSaveException("Ошибка фоновой записи истории", failure);
+        }
+    }
+
+    private void write() {
+        synchronized (ioLock) {
+            int[] events;
+            int count;
+            int[] history = null;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                events = pending;
+                count = pendingCount;
+                pending = new int[16];
+                pendingCount = 0;
+                writeScheduled = false;
+                batchSubmitted = false;
+                if (rewriteNeeded || written + count >= compactThreshold) {
+                    history = historyIds();
+                    rewriteNeeded = false;
+                    written = 0;
+                } else {
+                    written += count;
+                }
+            }
+            try {
+                if (history != null) {
+                    rewrite(history);
+                } else if (count > 0) {
+                    append(events, count);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    rewriteNeeded = true;
+                }
+                throw new ManagerSaveException("Ошибка сохранения истории", e);
+            }
+        }
+    }
+
+    // Записать незаписанное и больше не сохранять события
+    @Override
+    public void close() {
+        synchronized (ioLock) {
+            try {
+                flush();
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                }
+            }
+        }
+    }
+
+    // Запомнить событие и запланировать его запись; под монитором объекта
+    private void record(int event) {
+        if (closed) {
+            return;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = event;
+        if (pendingCount >= FLUSH_BATCH && !batchSubmitted) {
+            WRITER.execute(this::flushInBackground);
+            batchSubmitted = true;
+        } else if (!writeScheduled) {
+            WRITER.schedule(this::flushInBackground, flushDelayMillis, TimeUnit.MILLISECONDS);
+            writeScheduled = true;
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            write();
+        } catch (ManagerSaveException e) {
+            // Читатель об ошибке не узнаёт; о ней сообщит ближайший flush(), следующая запись перепишет файл
+            synchronized (this) {
+                if (backgroundFailure == null) {
+                    backgroundFailure = e;
+                }
+            }
+        }
+    }
+
+    // id текущей истории; под монитором объекта
+    private int[] historyIds() {
+        List<Task> history = delegate.getHistory();
+        int[] ids = new int[history.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = history.get(i).getId();
+        }
+        return ids;
+    }
+
+    private void append(int[] events, int count) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < count; i++) {
+                out.write(Integer.toString(events[i]));
+                out.write('\n');
+            }
+        }
+    }
+
+    // Заменить файл историей ids: временный файл и атомарная замена
+    private void rewrite(int[] ids) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (int id : ids) {
+                out.write(Integer.toString(id));
+                out.write('\n');
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,13 +1,26 @@
 package managers;
 
 import tasks.Task;
+import utils.IntObjectHashMap;
 
 import java.util.*;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
+    private final IntObjectHashMap<Node> nodeMap = new IntObjectHashMap<>();
     private final DoublyLinkedList historyList = new DoublyLinkedList();
     private static final int MAX_HISTORY_SIZE = 10;
+    private final int maxSize;
+
+    public InMemoryHistoryManager() {
+        this(MAX_HISTORY_SIZE);
+    }
+
+    public InMemoryHistoryManager(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        this.maxSize = maxSize;
+    }
 
     @Override
     public void add(Task task) {
@@ -17,7 +30,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         historyList.addLast(task);
         nodeMap.put(task.getId(), historyList.getTail());
 
-        if (historyList.size() > MAX_HISTORY_SIZE) {
+        if (historyList.size() > maxSize) {
             Node oldestNode = historyList.removeFirst();
             nodeMap.remove(oldestNode.task.getId());
         }
@@ -25,12 +38,10 @@ public class InMemoryHistoryManager implements HistoryManager {
 
     @Override
     public void remove(int id) {
-        if (!nodeMap.containsKey(id)) {
-            return;
+        Node nodeToRemove = nodeMap.remove(id);
+        if (nodeToRemove != null) {
+            historyList.removeNode(nodeToRemove);
         }
-        Node nodeToRemove = nodeMap.get(id);
-        historyList.removeNode(nodeToRemove);
-        nodeMap.remove(id);
     }
 
     @Override
@@ -1,92 +1,129 @@
 package managers;
 
 import tasks.*;
+import utils.IdOrderedMap;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Реализация менеджера задач, хранящая все данные в памяти.
  */
 public class InMemoryTaskManager implements TaskManager {
     // Защищённые поля, доступны в наследниках (например, FileBackedTaskManager)
-    protected int currentId = 1;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(Comparator
-            .comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+    protected final AtomicInteger currentId = new AtomicInteger(1);
+    protected final IdOrderedMap<Task> tasks = new IdOrderedMap<>();
+    protected final IdOrderedMap<Epic> epics = new IdOrderedMap<>();
+    protected final IdOrderedMap<Subtask> subtasks = new IdOrderedMap<>();
+    // Задачи с временем начала, отсортированные по startTime
+    protected final TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator
+            .comparing(Task::getStartTime)
             .thenComparing(Task::getId));
+    // Задачи без времени начала — в конце приоритетного списка, в порядке id
+    protected final Map<Integer, Task> unscheduledTasks = new TreeMap<>();
+    // Индекс интервалов для проверки пересечений за O(log n)
+    protected final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
 
-    // История просмотров (реализация не показана)
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
+    // История просмотров
+    protected final HistoryManager historyManager;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
 
     // Получить следующий уникальный id задачи
     protected int generateId() {
-        return currentId++;
+        return currentId.getAndIncrement();
     }
 
-    // Проверка пересечения по времени между задачами
-    protected boolean isTimeOverlaps(Task a, Task b) {
-        if (a.getStartTime() == null || a.getDuration() == null
-                || b.getStartTime() == null || b.getDuration() == null) {
-            return false;
-        }
-        LocalDateTime aStart = a.getStartTime();
-        LocalDateTime aEnd = a.getEndTime();
-        LocalDateTime bStart = b.getStartTime();
-        LocalDateTime bEnd = b.getEndTime();
-        return !(aEnd.isBefore(bStart) || aStart.isAfter(bEnd) || aEnd.equals(bStart) || aStart.equals(bEnd));
+    // Сдвинуть счётчик id так, чтобы следующий id был больше уже занятого
+    protected void reserveId(int id) {
+        currentId.accumulateAndGet(id + 1, Math::max);
     }
 
     // Добавить задачу в отсортированный список и проверить пересечение по времени
     protected void addToPrioritized(Task task) {
-        if (task.getStartTime() != null && task.getDuration() != null) {
-            for (Task t : prioritizedTasks) {
-                if (t.getStartTime() != null && t.getDuration() != null && isTimeOverlaps(task, t)) {
-                    throw new IllegalArgumentException("Пересечение задач по времени!");
-                }
-            }
+        if (task.getStartTime() == null) {
+            unscheduledTasks.put(task.getId(), task);
+            return;
         }
+        if (timeIndex.hasOverlap(task)) {
+            throw new IllegalArgumentException("Пересечение задач по времени!");
+        }
+        timeIndex.add(task);
         prioritizedTasks.add(task);
     }
 
-    // Обновить статус эпика по статусам подзадач
-    protected void updateEpicStatus(Epic epic) {
-        List<Subtask> subtaskList = epic.getSubtasks();
-        if (subtaskList.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-        boolean allNew = true;
-        boolean allDone = true;
-        for (Subtask subtask : subtaskList) {
-            if (subtask.getStatus() != TaskStatus.NEW) {
-                allNew = false;
-            }
-            if (subtask.getStatus() != TaskStatus.DONE) {
-                allDone = false;
+    // Добавить много задач в отсортированный список разом: одна сортировка и один проход
+    // проверки пересечений вместо проверки каждой задачи (см. TimeIntervalIndex.findOverlaps)
+    protected void addAllToPrioritized(List<? extends Task> loaded) {
+        timeIndex.requireNoOverlaps(loaded);
+        addCheckedToPrioritized(loaded);
+    }
+
+    // Добавить в отсортированный список задачи, уже проверенные на пересечения
+    protected void addCheckedToPrioritized(List<? extends Task> checked) {
+        timeIndex.addAllChecked(checked);
+        List<Task> scheduled = new ArrayList<>(checked.size());
+        for (Task task : checked) {
+            if (task.getStartTime() != null) {
+                scheduled.add(task);
+            } else {
+                unscheduledTasks.put(task.getId(), task);
             }
         }
-        if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
-        } else if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
+        if (prioritizedTasks.isEmpty()) {
+            scheduled.sort(prioritizedTasks.comparator());
+            prioritizedTasks.addAll(new SortedListView<>(scheduled, prioritizedTasks.comparator()));
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            prioritizedTasks.addAll(scheduled);
+        }
+    }
+
+    // Убрать задачу из отсортированного списка и индекса интервалов
+    protected void removeFromPrioritized(Task task) {
+        if (task.getStartTime() == null) {
+            unscheduledTasks.remove(task.getId());
+            return;
         }
+        prioritizedTasks.remove(task);
+        timeIndex.remove(task);
+    }
+
+    // Заменить задачу в отсортированном списке; при пересечении вернуть прежнюю версию
+    protected void replaceInPrioritized(Task oldTask, Task newTask) {
+        removeFromPrioritized(oldTask);
+        try {
+            addToPrioritized(newTask);
+        } catch (IllegalArgumentException e) {
+            addToPrioritized(oldTask);
+            throw e;
+        }
+    }
+
+    // Обновить статус эпика по счётчикам статусов подзадач, O(1)
+    protected void updateEpicStatus(Epic epic) {
+        epic.setStatus(epic.calculateStatus());
     }
 
     @Override
     public int addNewTask(Task task) {
         task.setId(generateId());
-        tasks.put(task.getId(), task);
         addToPrioritized(task);
+        tasks.put(task.getId(), task);
         return task.getId();
     }
 
     @Override
     public int addNewEpic(Epic epic) {
+        // Подзадачи, пришедшие с эпиком (например, в JSON), не зарегистрированы в менеджере
+        epic.clearSubtasks();
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
         updateEpicStatus(epic);
@@ -101,14 +138,79 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Эпик не найден: " + epicId);
         }
         subtask.setId(generateId());
+        addToPrioritized(subtask);
         subtasks.put(subtask.getId(), subtask);
         epic.addSubtask(subtask);
-        addToPrioritized(subtask);
         updateEpicStatus(epic);
-        epic.recalculateTimeAndDuration();
         return subtask.getId();
     }
 
+    /**
+     * Пакетное добавление задач: весь пакет проверяется на пересечения с расписанием и между собой
+     * одной сортировкой (см. TimeIntervalIndex.findOverlaps). Если есть конфликты, не добавляется ничего
+     * и id не расходуются; иначе все задачи получают id в порядке пакета.
+     */
+    @Override
+    public BatchResult addNewTasks(List<Task> batch) {
+        List<BatchResult.Conflict> conflicts = timeIndex.findOverlaps(batch);
+        if (!conflicts.isEmpty()) {
+            return BatchResult.rejected(conflicts);
+        }
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            task.setId(generateId());
+            tasks.put(task.getId(), task);
+            ids.add(task.getId());
+        }
+        addCheckedToPrioritized(batch);
+        return BatchResult.accepted(ids);
+    }
+
+    @Override
+    public BatchResult addNewEpics(List<Epic> batch) {
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Epic epic : batch) {
+            epic.clearSubtasks();
+            epic.setId(generateId());
+            epics.put(epic.getId(), epic);
+            updateEpicStatus(epic);
+            ids.add(epic.getId());
+        }
+        return BatchResult.accepted(ids);
+    }
+
+    // Как addNewTasks; дополнительно каждая подзадача должна ссылаться на существующий эпик
+    @Override
+    public BatchResult addNewSubtasks(List<Subtask> batch) {
+        List<BatchResult.Conflict> conflicts = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int epicId = batch.get(i).getEpicId();
+            if (!epics.containsKey(epicId)) {
+                conflicts.add(new BatchResult.Conflict(i, null, null, "Эпик не найден: " + epicId));
+            }
+        }
+        conflicts.addAll(timeIndex.findOverlaps(batch));
+        if (!conflicts.isEmpty()) {
+            conflicts.sort(Comparator.comparingInt(BatchResult.Conflict::getIndex));
+            return BatchResult.rejected(conflicts);
+        }
+        List<Integer> ids = new ArrayList<>(batch.size());
+        Set<Epic> touched = new HashSet<>();
+        for (Subtask subtask : batch) {
+            subtask.setId(generateId());
+            subtasks.put(subtask.getId(), subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            epic.addSubtask(subtask);
+            touched.add(epic);
+            ids.add(subtask.getId());
+        }
+        addCheckedToPrioritized(batch);
+        for (Epic epic : touched) {
+            updateEpicStatus(epic);
+        }
+        return BatchResult.accepted(ids);
+    }
+
     @Override
     public Task getTask(int id) {
         Task task = tasks.get(id);
@@ -145,6 +247,31 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return pageById(tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return pageById(epics, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return pageById(subtasks, afterId, limit);
+    }
+
+    // Страница элементов с id больше afterId в порядке id: O(log n + limit) по индексу id карты
+    protected <T extends Task> List<T> pageById(IdOrderedMap<T> source, int afterId, int limit) {
+        List<T> page = new ArrayList<>(Math.max(Math.min(limit, source.size()), 0));
+        Iterator<T> iterator = source.valuesAfter(afterId);
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
     @Override
     public List<Subtask> getEpicSubtasks(int epicId) {
         Epic epic = epics.get(epicId);
@@ -156,9 +283,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (!tasks.containsKey(task.getId())) {
             throw new NoSuchElementException("Задача не найдена!");
         }
-        prioritizedTasks.remove(tasks.get(task.getId()));
+        replaceInPrioritized(tasks.get(task.getId()), task);
         tasks.put(task.getId(), task);
-        addToPrioritized(task);
     }
 
 
@@ -167,9 +293,16 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(epic.getId())) {
             throw new NoSuchElementException("Эпик не найден!");
         }
+        // Состав подзадач определяет менеджер, а не присланный объект эпика
+        Epic oldEpic = epics.get(epic.getId());
+        if (oldEpic != epic) {
+            epic.clearSubtasks();
+            for (Subtask subtask : oldEpic.getSubtasks()) {
+                epic.addSubtask(subtask);
+            }
+        }
         epics.put(epic.getId(), epic);
         updateEpicStatus(epic);
-        epic.recalculateTimeAndDuration();
     }
 
 
@@ -178,14 +311,19 @@ public class InMemoryTaskManager implements TaskManager {
         if (!subtasks.containsKey(subtask.getId())) {
             throw new NoSuchElementException("Подзадача не найдена!");
         }
-        prioritizedTasks.remove(subtasks.get(subtask.getId()));
+        Subtask oldSubtask = subtasks.get(subtask.getId());
+        replaceInPrioritized(oldSubtask, subtask);
         subtasks.put(subtask.getId(), subtask);
+        Epic oldEpic = epics.get(oldSubtask.getEpicId());
         Epic epic = epics.get(subtask.getEpicId());
+        if (oldEpic != null && oldEpic != epic) {
+            oldEpic.removeSubtask(oldSubtask);
+            updateEpicStatus(oldEpic);
+        }
         if (epic != null) {
+            epic.addSubtask(subtask);
             updateEpicStatus(epic);
-            epic.recalculateTimeAndDuration();
         }
-        addToPrioritized(subtask);
     }
 
 
@@ -193,7 +331,7 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeTask(int id) {
         Task removed = tasks.remove(id);
         if (removed != null) {
-            prioritizedTasks.remove(removed);
+            removeFromPrioritized(removed);
             historyManager.remove(id);
         }
     }
@@ -204,7 +342,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic != null) {
             for (Subtask subtask : epic.getSubtasks()) {
                 subtasks.remove(subtask.getId());
-                prioritizedTasks.remove(subtask);
+                removeFromPrioritized(subtask);
             }
         }
     }
@@ -217,9 +355,8 @@ public class InMemoryTaskManager implements TaskManager {
             if (epic != null) {
                 epic.removeSubtask(subtask);
                 updateEpicStatus(epic);
-                epic.recalculateTimeAndDuration();
             }
-            prioritizedTasks.remove(subtask);
+            removeFromPrioritized(subtask);
         }
     }
 
@@ -231,7 +368,7 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void removeAllTasks() {
         for (Task t : tasks.values()) {
-            prioritizedTasks.remove(t);
+            removeFromPrioritized(t);
             historyManager.remove(t.getId());
         }
         tasks.clear();
@@ -241,7 +378,7 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeAllEpics() {
         for (Epic e : epics.values()) {
             for (Subtask subtask : e.getSubtasks()) {
-                prioritizedTasks.remove(subtask);
+                removeFromPrioritized(subtask);
                 historyManager.remove(subtask.getId());
                 subtasks.remove(subtask.getId());
             }
@@ -254,20 +391,32 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void removeAllSubtasks() {
         for (Subtask sub : subtasks.values()) {
-            prioritizedTasks.remove(sub);
+            removeFromPrioritized(sub);
             historyManager.remove(sub.getId());
         }
         subtasks.clear();
         for (Epic epic : epics.values()) {
             epic.clearSubtasks();
             updateEpicStatus(epic);
-            epic.recalculateTimeAndDuration();
         }
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        List<Task> result = new ArrayList<>(prioritizedTasks.size() + unscheduledTasks.size());
+        result.addAll(prioritizedTasks);
+        result.addAll(unscheduledTasks.values());
+        return result;
     }
 
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime after, int limit) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Длительность должна быть положительной");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество промежутков должно быть положительным");
+        }
+        return timeIndex.findFreeSlots(after, duration, limit);
+    }
 }
@@ -21,9 +21,34 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
-    // Возвращает стандартный менеджер истории
+    // Возвращает потокобезопасный менеджер задач для многопоточного сервера
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Возвращает потокобезопасный менеджер, читающий списки из неизменяемых снимков
+    public static TaskManager getSnapshotting() {
+        return new SnapshotTaskManager();
+    }
+
+    // Возвращает менеджер, хранящий поля задач вне кучи, для очень больших досок
+    public static TaskManager getOffHeap() {
+        return new OffHeapTaskManager();
+    }
+
+    // Возвращает стандартный менеджер истории: кольцевой буфер, не выделяющий память на просмотр
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return new RingBufferHistoryManager();
+    }
+
+    // Возвращает менеджер истории с отдельной историей на каждого клиента и вытеснением давно неактивных
+    public static HistoryManager getPerClientHistory(int historySize, int maxClients) {
+        return new PerClientHistoryManager(historySize, maxClients);
+    }
+
+    // Оборачивает менеджер истории так, что просмотры записываются вне пути чтения задач
+    public static HistoryManager getAsyncHistory(HistoryManager delegate) {
+        return new AsyncHistoryManager(delegate);
     }
 
     // Пример: можно добавить фабрику для менеджера, работающего с файлами
@@ -31,6 +56,18 @@ public class Managers {
         return new FileBackedTaskManager(filePath.toFile());
     }
 
+    // Файловый менеджер с выбранным способом сохранения (снимок или журнал изменений)
+    public static TaskManager getFileBacked(Path filePath, FileBackedTaskManager.PersistenceMode mode) {
+        return new FileBackedTaskManager(filePath.toFile(), mode);
+    }
+
+    // Файловый менеджер с журналом и выбранным уровнем надёжности групповой записи
+    public static TaskManager getFileBacked(Path filePath, GroupCommitWriter.Durability durability,
+                                            long syncIntervalMillis) {
+        return new FileBackedTaskManager(filePath.toFile(), FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG,
+                durability, syncIntervalMillis);
+    }
+
     public static Gson getGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(Duration.class, new DurationAdapter());
@@ -0,0 +1,482 @@
+package managers;
+
+import tasks.*;
+import utils.SortedIntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Менеджер задач для очень больших досок: поля задач хранятся в столбцах вне кучи
+ * (см. ColumnarTaskStore), расписание — в примитивных массивах (см. PackedIntervalIndex).
+ * <p>
+ * Объекты Task, Epic и Subtask создаются только на границе API: методы get* возвращают новые копии,
+ * а add* и update* копируют поля переданного объекта в столбцы. Поэтому изменение возвращённой
+ * задачи без вызова update ничего не меняет в менеджере, а эпик в истории просмотров — снимок на момент
+ * просмотра. Начало хранится с точностью до секунды, длительность — до минуты, как в файлах снимка.
+ * <p>
+ * Поведение остальных методов совпадает с InMemoryTaskManager. Менеджер не потокобезопасен.
+ */
+public class OffHeapTaskManager implements TaskManager {
+    private static final long NO_TIME = ColumnarTaskStore.NO_TIME;
+
+    private final ColumnarTaskStore store = new ColumnarTaskStore();
+    // Задачи с началом и длительностью: проверка пересечений и свободные промежутки
+    private final PackedIntervalIndex schedule = new PackedIntervalIndex();
+    // Задачи с началом, но без длительности: только для порядка в приоритетном списке
+    private final PackedIntervalIndex undated = new PackedIntervalIndex();
+    // Задачи и подзадачи без начала, по id: хвост приоритетного списка
+    private final SortedIntSet unscheduled = new SortedIntSet();
+    private final HistoryManager historyManager;
+    private int nextId = 1;
+    private final int[] counts = new int[TaskType.values().length];
+
+    public OffHeapTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public OffHeapTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    // Сколько байт вне кучи занимают столбцы и строки
+    public long getOffHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        task.setId(nextId++);
+        long start = ColumnarTaskStore.seconds(task.getStartTime());
+        long end = ColumnarTaskStore.end(task);
+        requireFree(start, end);
+        insert(task, start, end);
+        return task.getId();
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        epic.setId(nextId++);
+        insert(epic, NO_TIME, NO_TIME);
+        epic.setStatus(TaskStatus.NEW);
+        return epic.getId();
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
+        if (!store.is(epicId, TaskType.EPIC)) {
+            throw new IllegalArgumentException("Эпик не найден: " + epicId);
+        }
+        subtask.setId(nextId++);
+        long start = ColumnarTaskStore.seconds(subtask.getStartTime());
+        long end = ColumnarTaskStore.end(subtask);
+        requireFree(start, end);
+        insert(subtask, start, end);
+        store.link(epicId, subtask.getId());
+        return subtask.getId();
+    }
+
+    @Override
+    public BatchResult addNewTasks(List<Task> batch) {
+        List<BatchResult.Conflict> conflicts = findOverlaps(batch);
+        if (!conflicts.isEmpty()) {
+            return BatchResult.rejected(conflicts);
+        }
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            task.setId(nextId++);
+            insert(task, ColumnarTaskStore.seconds(task.getStartTime()), ColumnarTaskStore.end(task));
+            ids.add(task.getId());
+        }
+        return BatchResult.accepted(ids);
+    }
+
+    @Override
+    public BatchResult addNewEpics(List<Epic> batch) {
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Epic epic : batch) {
+            ids.add(addNewEpic(epic));
+        }
+        return BatchResult.accepted(ids);
+    }
+
+    @Override
+    public BatchResult addNewSubtasks(List<Subtask> batch) {
+        List<BatchResult.Conflict> conflicts = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int epicId = batch.get(i).getEpicId();
+            if (!store.is(epicId, TaskType.EPIC)) {
+                conflicts.add(new BatchResult.Conflict(i, null, null, "Эпик не найден: " + epicId));
+            }
+        }
+        conflicts.addAll(findOverlaps(batch));
+        if (!conflicts.isEmpty()) {
+            conflicts.sort(Comparator.comparingInt(BatchResult.Conflict::getIndex));
+            return BatchResult.rejected(conflicts);
+        }
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Subtask subtask : batch) {
+            subtask.setId(nextId++);
+            insert(subtask, ColumnarTaskStore.seconds(subtask.getStartTime()), ColumnarTaskStore.end(subtask));
+            store.link(subtask.getEpicId(), subtask.getId());
+            ids.add(subtask.getId());
+        }
+        return BatchResult.accepted(ids);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return viewed(id, TaskType.TASK);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return (Epic) viewed(id, TaskType.EPIC);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return (Subtask) viewed(id, TaskType.SUBTASK);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return list(TaskType.TASK, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return list(TaskType.EPIC, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return list(TaskType.SUBTASK, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return list(TaskType.TASK, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return list(TaskType.EPIC, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return list(TaskType.SUBTASK, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        if (!store.is(epicId, TaskType.EPIC)) {
+            return Collections.emptyList();
+        }
+        List<Subtask> result = new ArrayList<>();
+        for (int sub = store.firstSubtask(epicId); sub != 0; sub = store.nextSubtask(sub)) {
+            result.add((Subtask) store.materialize(sub));
+        }
+        return result;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (!store.is(task.getId(), TaskType.TASK)) {
+            throw new NoSuchElementException("Задача не найдена!");
+        }
+        reschedule(task);
+        store.write(task);
+    }
+
+    // Состав подзадач, статус и время эпика вычисляются по подзадачам, поэтому меняются только название и описание
+    @Override
+    public void updateEpic(Epic epic) {
+        if (!store.is(epic.getId(), TaskType.EPIC)) {
+            throw new NoSuchElementException("Эпик не найден!");
+        }
+        store.write(epic);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        if (!store.is(id, TaskType.SUBTASK)) {
+            throw new NoSuchElementException("Подзадача не найдена!");
+        }
+        reschedule(subtask);
+        int oldEpicId = store.epicId(id);
+        store.write(subtask);
+        if (oldEpicId != subtask.getEpicId()) {
+            store.unlink(oldEpicId, id);
+            if (store.is(subtask.getEpicId(), TaskType.EPIC)) {
+                store.link(subtask.getEpicId(), id);
+            }
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        if (store.is(id, TaskType.TASK)) {
+            delete(id);
+            historyManager.remove(id);
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        if (!store.is(id, TaskType.EPIC)) {
+            return;
+        }
+        int sub = store.firstSubtask(id);
+        while (sub != 0) {
+            int next = store.nextSubtask(sub);
+            delete(sub);
+            sub = next;
+        }
+        delete(id);
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        if (store.is(id, TaskType.SUBTASK)) {
+            store.unlink(store.epicId(id), id);
+            delete(id);
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        removeAll(TaskType.TASK);
+    }
+
+    @Override
+    public void removeAllEpics() {
+        removeAll(TaskType.SUBTASK);
+        removeAll(TaskType.EPIC);
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        removeAll(TaskType.SUBTASK);
+        for (int id = 1; id < nextId; id++) {
+            if (store.is(id, TaskType.EPIC)) {
+                store.clearSubtasks(id);
+            }
+        }
+    }
+
+    /**
+     * Задачи с началом по возрастанию начала (при равенстве — по id), затем задачи без начала по id.
+     * Оба индекса с началом уже отсортированы по началу, поэтому они сливаются двумя курсорами;
+     * по id упорядочиваются только записи с одинаковым началом. Задачи без начала идут из своего
+     * индекса, без обхода всех id.
+     */
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>(schedule.size() + undated.size() + unscheduled.size());
+        PackedIntervalIndex.Cursor timed = schedule.first();
+        PackedIntervalIndex.Cursor untimed = undated.first();
+        while (timed.valid() || untimed.valid()) {
+            long start = !untimed.valid() || (timed.valid() && timed.start() <= untimed.start())
+                    ? timed.start()
+                    : untimed.start();
+            int groupStart = result.size();
+            for (; timed.valid() && timed.start() == start; timed.next()) {
+                result.add(store.materialize(timed.id()));
+            }
+            for (; untimed.valid() && untimed.start() == start; untimed.next()) {
+                result.add(store.materialize(untimed.id()));
+            }
+            if (result.size() - groupStart > 1) {
+                result.subList(groupStart, result.size()).sort(Comparator.comparingInt(Task::getId));
+            }
+        }
+        for (PrimitiveIterator.OfInt ids = unscheduled.iterator(); ids.hasNext(); ) {
+            result.add(store.materialize(ids.nextInt()));
+        }
+        return result;
+    }
+
+    // Тот же обход, что в TimeIntervalIndex.findFreeSlots, по секундам вместо LocalDateTime
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime after, int limit) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Длительность должна быть положительной");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество промежутков должно быть положительным");
+        }
+        List<TimeSlot> result = new ArrayList<>();
+        long from = ColumnarTaskStore.seconds(after);
+        long length = duration.getSeconds();
+        LocalDateTime cursorTime = after;
+        long cursor = from;
+        PackedIntervalIndex.Cursor c = schedule.ceiling(from, from, Integer.MIN_VALUE);
+        PackedIntervalIndex.Cursor previous = c.previous();
+        if (previous != null && previous.end() > cursor) {
+            cursor = previous.end();
+            cursorTime = ColumnarTaskStore.toTime(cursor);
+        }
+        for (; c.valid(); c.next()) {
+            if (cursor + length <= c.start()) {
+                result.add(new TimeSlot(cursorTime, ColumnarTaskStore.toTime(c.start())));
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+            if (c.end() > cursor) {
+                cursor = c.end();
+                cursorTime = ColumnarTaskStore.toTime(cursor);
+            }
+        }
+        result.add(new TimeSlot(cursorTime, null));
+        return result;
+    }
+
+    private Task viewed(int id, TaskType type) {
+        if (!store.is(id, type)) {
+            return null;
+        }
+        Task task = store.materialize(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    // До limit элементов типа type с id больше afterId, в порядке id
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> list(TaskType type, int afterId, int limit) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, counts[type.ordinal()])));
+        for (int id = Math.max(afterId, 0) + 1; id < nextId && result.size() < limit; id++) {
+            if (store.is(id, type)) {
+                result.add((T) store.materialize(id));
+            }
+        }
+        return result;
+    }
+
+    private void insert(Task task, long start, long end) {
+        store.write(task);
+        counts[task.getType().ordinal()]++;
+        addToSchedule(task.getId(), start, end);
+    }
+
+    // Удалить строку вместе с её интервалом; списки эпиков вызывающий правит сам
+    private void delete(int id) {
+        removeFromSchedule(id);
+        counts[store.type(id).ordinal()]--;
+        store.free(id);
+    }
+
+    private void removeAll(TaskType type) {
+        for (int id = 1; id < nextId; id++) {
+            if (store.is(id, type)) {
+                delete(id);
+                historyManager.remove(id);
+            }
+        }
+    }
+
+    private void requireFree(long start, long end) {
+        if (start != NO_TIME && end != NO_TIME && overlapping(start, end) != null) {
+            throw new IllegalArgumentException("Пересечение задач по времени!");
+        }
+    }
+
+    // Заменить интервал задачи новым; при пересечении вернуть прежний и бросить исключение
+    private void reschedule(Task task) {
+        int id = task.getId();
+        long oldStart = store.start(id);
+        long oldEnd = store.end(id);
+        removeFromSchedule(id);
+        long start = ColumnarTaskStore.seconds(task.getStartTime());
+        long end = ColumnarTaskStore.end(task);
+        try {
+            requireFree(start, end);
+        } catch (IllegalArgumentException e) {
+            addToSchedule(id, oldStart, oldEnd);
+            throw e;
+        }
+        addToSchedule(id, start, end);
+    }
+
+    private void addToSchedule(int id, long start, long end) {
+        if (store.is(id, TaskType.EPIC)) {
+            return;
+        }
+        if (start == NO_TIME) {
+            unscheduled.add(id);
+            return;
+        }
+        if (end == NO_TIME) {
+            undated.add(start, start, id);
+        } else {
+            schedule.add(start, end, id);
+        }
+    }
+
+    private void removeFromSchedule(int id) {
+        if (store.is(id, TaskType.EPIC)) {
+            return;
+        }
+        long start = store.start(id);
+        if (start == NO_TIME) {
+            unscheduled.remove(id);
+            return;
+        }
+        long end = store.end(id);
+        if (end == NO_TIME) {
+            undated.remove(start, start, id);
+        } else {
+            schedule.remove(start, end, id);
+        }
+    }
+
+    // Интервал расписания, пересекающийся с [start, end), или null — см. TimeIntervalIndex.overlapping
+    private PackedIntervalIndex.Cursor overlapping(long start, long end) {
+        PackedIntervalIndex.Cursor previous = schedule.ceiling(end, end, Integer.MIN_VALUE).previous();
+        return previous != null && previous.end() > start ? previous : null;
+    }
+
+    // Пакетная проверка пересечений — тот же проход, что в TimeIntervalIndex.findOverlaps
+    private List<BatchResult.Conflict> findOverlaps(List<? extends Task> batch) {
+        List<Integer> order = new ArrayList<>(batch.size());
+        long[] starts = new long[batch.size()];
+        long[] ends = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            starts[i] = ColumnarTaskStore.seconds(batch.get(i).getStartTime());
+            ends[i] = ColumnarTaskStore.end(batch.get(i));
+            if (starts[i] != NO_TIME && ends[i] != NO_TIME) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.<Integer>comparingLong(i -> starts[i])
+                .thenComparingLong(i -> ends[i])
+                .thenComparingInt(i -> i));
+        List<BatchResult.Conflict> conflicts = new ArrayList<>();
+        int latest = -1;
+        for (int i : order) {
+            PackedIntervalIndex.Cursor existing = overlapping(starts[i], ends[i]);
+            if (existing != null) {
+                conflicts.add(new BatchResult.Conflict(i, existing.id(), null,
+                        "Пересечение по времени с задачей " + existing.id()));
+            } else if (latest >= 0 && ends[latest] > starts[i] && starts[latest] < ends[i]) {
+                conflicts.add(new BatchResult.Conflict(i, null, latest,
+                        "Пересечение по времени с элементом пакета " + latest));
+            }
+            if (latest < 0 || ends[i] > ends[latest]) {
+                latest = i;
+            }
+        }
+        conflicts.sort(Comparator.comparingInt(BatchResult.Conflict::getIndex));
+        return conflicts;
+    }
+}
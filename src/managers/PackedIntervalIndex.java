@@ -0,0 +1,196 @@
+package managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отсортированный набор интервалов (начало, конец, id) в примитивных массивах, без объекта на запись.
+ * <p>
+ * Записи лежат блоками до BLOCK_SIZE штук в порядке (начало, конец, id), как в TimeIntervalIndex:
+ * поиск — двоичный по блокам и внутри блока, вставка и удаление сдвигают не больше одного блока.
+ * Сборщику мусора видно лишь n / BLOCK_SIZE блоков из трёх примитивных массивов, а не объект
+ * на каждую задачу. Время — в секундах эпохи, как в ColumnarTaskStore.
+ */
+final class PackedIntervalIndex {
+    private static final int BLOCK_SIZE = 1024;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        blocks.clear();
+        size = 0;
+    }
+
+    void add(long start, long end, int id) {
+        // Пустых блоков не бывает: пустой индекс получает первый блок, ключ больше всех — идёт в последний
+        int b = blockFor(start, end, id);
+        if (blocks.isEmpty()) {
+            blocks.add(new Block());
+        } else if (b == blocks.size()) {
+            b--;
+        }
+        Block block = blocks.get(b);
+        block.insert(block.ceiling(start, end, id), start, end, id);
+        size++;
+        if (block.size == BLOCK_SIZE) {
+            blocks.add(b + 1, block.splitUpperHalf());
+        }
+    }
+
+    boolean remove(long start, long end, int id) {
+        int b = blockFor(start, end, id);
+        if (b == blocks.size()) {
+            return false;
+        }
+        Block block = blocks.get(b);
+        int i = block.ceiling(start, end, id);
+        if (i == block.size || block.compareAt(i, start, end, id) != 0) {
+            return false;
+        }
+        block.delete(i);
+        size--;
+        if (block.size == 0) {
+            blocks.remove(b);
+        }
+        return true;
+    }
+
+    // Курсор на первую запись не меньше (start, end, id); previous() даёт запись перед ней
+    Cursor ceiling(long start, long end, int id) {
+        int b = blockFor(start, end, id);
+        Cursor cursor = new Cursor(b, 0);
+        if (b < blocks.size()) {
+            cursor.offset = blocks.get(b).ceiling(start, end, id);
+        }
+        return cursor;
+    }
+
+    Cursor first() {
+        return new Cursor(0, 0);
+    }
+
+    // Первый блок, последняя запись которого не меньше ключа, или blocks.size()
+    private int blockFor(long start, long end, int id) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Block block = blocks.get(mid);
+            if (block.compareAt(block.size - 1, start, end, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Позиция в индексе; после изменения индекса курсор недействителен
+    final class Cursor {
+        private int block;
+        private int offset;
+
+        private Cursor(int block, int offset) {
+            this.block = block;
+            this.offset = offset;
+        }
+
+        boolean valid() {
+            return block < blocks.size() && offset < blocks.get(block).size;
+        }
+
+        long start() {
+            return blocks.get(block).starts[offset];
+        }
+
+        long end() {
+            return blocks.get(block).ends[offset];
+        }
+
+        int id() {
+            return blocks.get(block).ids[offset];
+        }
+
+        void next() {
+            if (++offset == blocks.get(block).size) {
+                block++;
+                offset = 0;
+            }
+        }
+
+        // Курсор на предыдущую запись или null, если эта запись первая
+        Cursor previous() {
+            if (offset > 0) {
+                return new Cursor(block, offset - 1);
+            }
+            if (block == 0) {
+                return null;
+            }
+            return new Cursor(block - 1, blocks.get(block - 1).size - 1);
+        }
+    }
+
+    private static final class Block {
+        final long[] starts = new long[BLOCK_SIZE];
+        final long[] ends = new long[BLOCK_SIZE];
+        final int[] ids = new int[BLOCK_SIZE];
+        int size;
+
+        int compareAt(int i, long start, long end, int id) {
+            int result = Long.compare(starts[i], start);
+            if (result != 0) {
+                return result;
+            }
+            result = Long.compare(ends[i], end);
+            return result != 0 ? result : Integer.compare(ids[i], id);
+        }
+
+        // Первая позиция с записью не меньше ключа
+        int ceiling(long start, long end, int id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareAt(mid, start, end, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void insert(int i, long start, long end, int id) {
+            System.arraycopy(starts, i, starts, i + 1, size - i);
+            System.arraycopy(ends, i, ends, i + 1, size - i);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            starts[i] = start;
+            ends[i] = end;
+            ids[i] = id;
+            size++;
+        }
+
+        void delete(int i) {
+            System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+            System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+
+        Block splitUpperHalf() {
+            Block upper = new Block();
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(starts, half, upper.starts, 0, upper.size);
+            System.arraycopy(ends, half, upper.ends, 0, upper.size);
+            System.arraycopy(ids, half, upper.ids, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package managers;
+
+import tasks.Task;
+import utils.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отдельная история просмотров для каждого клиента.
+ * <p>
+ * Клиента задаёт вызывающий поток через setCurrentClient (HTTP-сервер берёт его из заголовка
+ * X-Client-Id); просмотры без клиента попадают в общую историю, как раньше. У каждого клиента —
+ * свой RingBufferHistoryManager на historySize просмотров. Клиент, который дольше idleTimeoutMillis
+ * не смотрел ни задачи, ни свою историю, вытесняется при следующем обращении к менеджеру. Кроме того,
+ * клиентов не больше maxClients: при появлении лишнего вытесняется тот, кто дольше всех не обращался
+ * (LRU), так что память ограничена maxClients * historySize записями.
+ * <p>
+ * Для remove хранится обратный индекс id -> истории, в которых этот id сейчас есть (множество
+ * по идентичности), поэтому удаление задачи затрагивает только эти истории, а вытеснение просмотра
+ * из одной истории стоит O(1) независимо от числа клиентов. Не потокобезопасен
+ * (см. SynchronizedHistoryManager).
+ */
+public class PerClientHistoryManager implements HistoryManager {
+    public static final int DEFAULT_MAX_CLIENTS = 10_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    // Ключ общей истории для просмотров без клиента
+    private static final String SHARED = "";
+    private static final ThreadLocal<String> currentClient = new ThreadLocal<>();
+
+    private final int historySize;
+    private final long idleTimeoutNanos;
+    // В порядке доступа: первыми идут клиенты, дольше всех не обращавшиеся
+    private final Map<String, Session> sessions;
+    private final IntObjectHashMap<Set<RingBufferHistoryManager>> holders = new IntObjectHashMap<>();
+
+    public PerClientHistoryManager() {
+        this(RingBufferHistoryManager.DEFAULT_CAPACITY, DEFAULT_MAX_CLIENTS);
+    }
+
+    public PerClientHistoryManager(int historySize, int maxClients) {
+        this(historySize, maxClients, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public PerClientHistoryManager(int historySize, int maxClients, long idleTimeoutMillis) {
+        if (historySize <= 0 || maxClients <= 0 || idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Размер истории, число клиентов и время простоя должны быть положительными");
+        }
+        this.historySize = historySize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                if (size() <= maxClients) {
+                    return false;
+                }
+                releaseAll(eldest.getValue().history);
+                return true;
+            }
+        };
+    }
+
+    // Привязать последующие вызовы в этом потоке к клиенту; null — общая история
+    public static void setCurrentClient(String clientId) {
+        currentClient.set(clientId);
+    }
+
+    public static void clearCurrentClient() {
+        currentClient.remove();
+    }
+
+    // Клиент, к которому сейчас привязан поток, или null
+    public static String getCurrentClient() {
+        return currentClient.get();
+    }
+
+    @Override
+    public void add(Task task) {
+        long now = System.nanoTime();
+        evictIdle(now);
+        Session session = sessions.computeIfAbsent(clientKey(), key -> new Session(historySize));
+        session.lastAccess = now;
+        RingBufferHistoryManager history = session.history;
+        int id = task.getId();
+        if (!history.contains(id)) {
+            if (history.size() == historySize) {
+                release(history.oldestId(), history);
+            }
+            Set<RingBufferHistoryManager> holding = holders.get(id);
+            if (holding == null) {
+                holding = Collections.newSetFromMap(new IdentityHashMap<>(2));
+                holders.put(id, holding);
+            }
+            holding.add(history);
+        }
+        history.add(task);
+    }
+
+    @Override
+    public void remove(int id) {
+        Set<RingBufferHistoryManager> holding = holders.remove(id);
+        if (holding != null) {
+            for (RingBufferHistoryManager history : holding) {
+                history.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long now = System.nanoTime();
+        evictIdle(now);
+        Session session = sessions.get(clientKey());
+        if (session == null) {
+            return new ArrayList<>();
+        }
+        session.lastAccess = now;
+        return session.history.getHistory();
+    }
+
+    // Число клиентов, чья история сейчас хранится
+    public int getClientCount() {
+        return sessions.size();
+    }
+
+    private static String clientKey() {
+        String client = currentClient.get();
+        return client == null ? SHARED : client;
+    }
+
+    // Вытеснить клиентов, простаивающих дольше idleTimeout; они в начале порядка доступа,
+    // поэтому проверка останавливается на первом активном
+    private void evictIdle(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (now - session.lastAccess < idleTimeoutNanos) {
+                return;
+            }
+            releaseAll(session.history);
+            iterator.remove();
+        }
+    }
+
+    // Убрать всю историю из обратного индекса
+    private void releaseAll(RingBufferHistoryManager history) {
+        for (Task task : history.getHistory()) {
+            release(task.getId(), history);
+        }
+    }
+
+    // Убрать историю из обратного индекса для id
+    private void release(int id, RingBufferHistoryManager history) {
+        Set<RingBufferHistoryManager> holding = holders.get(id);
+        if (holding != null && holding.remove(history) && holding.isEmpty()) {
+            holders.remove(id);
+        }
+    }
+
+    // История клиента и время последнего обращения к ней (System.nanoTime)
+    private static final class Session {
+        final RingBufferHistoryManager history;
+        long lastAccess;
+
+        Session(int historySize) {
+            this.history = new RingBufferHistoryManager(historySize);
+        }
+    }
+}
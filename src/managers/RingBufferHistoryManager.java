@@ -0,0 +1,183 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * История просмотров в кольцевом буфере фиксированной ёмкости, без выделения памяти на add и remove.
+ * <p>
+ * Просмотры лежат подряд в кольце из параллельных массивов id и задач, от старых к новым. Позицию id
+ * в кольце находит маленькая хеш-таблица с открытой адресацией на примитивных массивах. При повторном
+ * просмотре и remove образовавшийся промежуток закрывается сдвигом более короткой стороны кольца
+ * на одну ячейку, как в ArrayDeque, — не больше capacity / 2 перемещений и ни одного нового объекта.
+ * <p>
+ * Поведение совпадает с InMemoryHistoryManager. Не потокобезопасен (см. SynchronizedHistoryManager).
+ */
+public class RingBufferHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 10;
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final int[] ids;
+    private final Task[] tasks;
+    // Ячейка самого старого просмотра и число просмотров
+    private int head;
+    private int size;
+
+    // Индекс id -> ячейка кольца; заполнение не больше половины
+    private final int[] indexKeys;
+    private final int[] indexSlots;
+    private final int indexShift;
+
+    public RingBufferHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RingBufferHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть положительной");
+        }
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.tasks = new Task[capacity];
+        int indexSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.indexKeys = new int[indexSize];
+        this.indexSlots = new int[indexSize];
+        this.indexShift = 32 - Integer.numberOfTrailingZeros(indexSize);
+        Arrays.fill(indexSlots, EMPTY);
+    }
+
+    @Override
+    public void add(Task task) {
+        int id = task.getId();
+        int slot = indexRemove(id);
+        if (slot != EMPTY) {
+            close(slot);
+        } else if (size == capacity) {
+            indexRemove(ids[head]);
+            tasks[head] = null;
+            head = wrap(head + 1);
+            size--;
+        }
+        int tail = wrap(head + size);
+        ids[tail] = id;
+        tasks[tail] = task;
+        size++;
+        indexPut(id, tail);
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = indexRemove(id);
+        if (slot != EMPTY) {
+            close(slot);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(tasks[wrap(head + i)]);
+        }
+        return result;
+    }
+
+    // Сколько просмотров сейчас в истории
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return indexFind(id) != EMPTY;
+    }
+
+    // id самого старого просмотра; вызывать только при size() > 0
+    int oldestId() {
+        return ids[head];
+    }
+
+    private int wrap(int position) {
+        return position >= capacity ? position - capacity : position;
+    }
+
+    // Убрать запись из ячейки slot, сдвинув на одну ячейку ту часть кольца, что короче
+    private void close(int slot) {
+        int offset = wrap(slot - head + capacity);
+        if (offset < size / 2) {
+            for (int i = offset; i > 0; i--) {
+                move(wrap(head + i - 1), wrap(head + i));
+            }
+            tasks[head] = null;
+            head = wrap(head + 1);
+        } else {
+            for (int i = offset; i < size - 1; i++) {
+                move(wrap(head + i + 1), wrap(head + i));
+            }
+            tasks[wrap(head + size - 1)] = null;
+        }
+        size--;
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        tasks[to] = tasks[from];
+        indexPut(ids[to], to);
+    }
+
+    private int home(int id) {
+        return (id * 0x9E3779B9) >>> indexShift;
+    }
+
+    private int indexFind(int id) {
+        int mask = indexKeys.length - 1;
+        int i = home(id);
+        while (indexSlots[i] != EMPTY) {
+            if (indexKeys[i] == id) {
+                return indexSlots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private void indexPut(int id, int slot) {
+        int mask = indexKeys.length - 1;
+        int i = home(id);
+        while (indexSlots[i] != EMPTY && indexKeys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        indexKeys[i] = id;
+        indexSlots[i] = slot;
+    }
+
+    // Удалить id из индекса и вернуть его ячейку кольца или EMPTY; цепочка сдвигается назад, без «надгробий»
+    private int indexRemove(int id) {
+        int mask = indexKeys.length - 1;
+        int hole = home(id);
+        while (indexSlots[hole] != EMPTY && indexKeys[hole] != id) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = indexSlots[hole];
+        if (slot == EMPTY) {
+            return EMPTY;
+        }
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (indexSlots[i] == EMPTY) {
+                break;
+            }
+            if (((i - home(indexKeys[i])) & mask) >= ((i - hole) & mask)) {
+                indexKeys[hole] = indexKeys[i];
+                indexSlots[hole] = indexSlots[i];
+                hole = i;
+            }
+        }
+        indexSlots[hole] = EMPTY;
+        return slot;
+    }
+}
@@ -0,0 +1,53 @@
+package managers;
+
+import tasks.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перевод файла снимка из одного формата в другой (CSV ⇄ двоичный).
+ * Формат исходного файла определяется автоматически.
+ * <pre>
+ * java managers.SnapshotConverter &lt;исходный файл&gt; &lt;новый файл&gt; &lt;CSV|BINARY|BINARY_DEFLATE&gt;
+ * </pre>
+ * Журнал изменений (file + ".log") не переносится: перед переводом его нужно применить
+ * к снимку через checkpoint().
+ */
+public class SnapshotConverter {
+    private SnapshotConverter() {
+    }
+
+    // Прочитать source и записать те же задачи в target в формате format; возвращает число задач
+    public static int convert(Path source, Path target, FileBackedTaskManager.SnapshotFormat format) {
+        List<Task> tasks = new ArrayList<>();
+        Path temp = Paths.get(target + ".tmp");
+        try {
+            SnapshotIO.read(source, tasks::add);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+                SnapshotIO.write(out, tasks, format);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка преобразования файла " + source, e);
+        }
+        return tasks.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Использование: SnapshotConverter <исходный файл> <новый файл> <CSV|BINARY|BINARY_DEFLATE>");
+            return;
+        }
+        FileBackedTaskManager.SnapshotFormat format = FileBackedTaskManager.SnapshotFormat.valueOf(args[2]);
+        int count = convert(Paths.get(args[0]), Paths.get(args[1]), format);
+        System.out.println("Записано задач: " + count);
+    }
+}
@@ -0,0 +1,85 @@
+package managers;
+
+import tasks.Task;
+import utils.BinaryTaskCodec;
+import utils.CsvUtil;
+import utils.MappedLineReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Чтение и запись файла снимка в любом из форматов {@link FileBackedTaskManager.SnapshotFormat}.
+ * При чтении формат определяется по сигнатуре в начале файла, поэтому менеджер, настроенный
+ * на один формат, загружает снимок, записанный в другом.
+ */
+final class SnapshotIO {
+    private SnapshotIO() {
+    }
+
+    static boolean isBinary(Path path) throws IOException {
+        byte[] head = new byte[BinaryTaskCodec.magicLength()];
+        try (InputStream in = Files.newInputStream(path)) {
+            return BinaryTaskCodec.hasMagic(head, in.readNBytes(head, 0, head.length));
+        }
+    }
+
+    // Передать обработчику все задачи снимка в порядке записи
+    static void read(Path path, Consumer<Task> action) throws IOException {
+        if (isBinary(path)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+                BinaryTaskCodec.read(in, action);
+            }
+            return;
+        }
+        boolean[] header = {true};
+        MappedLineReader.forEachRecord(path, line -> {
+            if (header[0]) {
+                header[0] = false;
+                return;
+            }
+            if (line.trim().isEmpty()) return;
+            action.accept(CsvUtil.fromCsvTask(line));
+        });
+    }
+
+    // Записать задачи в поток в заданном формате
+    static void write(OutputStream out, Iterable<? extends Task> tasks, FileBackedTaskManager.SnapshotFormat format)
+            throws IOException {
+        switch (format) {
+            case CSV:
+                writeCsv(out, tasks);
+                break;
+            case BINARY:
+                BinaryTaskCodec.write(out, tasks, false);
+                break;
+            case BINARY_DEFLATE:
+                BinaryTaskCodec.write(out, tasks, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный формат снимка: " + format);
+        }
+    }
+
+    private static void writeCsv(OutputStream out, Iterable<? extends Task> tasks) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CsvUtil.HEADER);
+        writer.newLine();
+        StringBuilder row = new StringBuilder(128);
+        char[] chars = new char[128];
+        for (Task task : tasks) {
+            row.setLength(0);
+            CsvUtil.appendCsv(row, task);
+            if (chars.length < row.length()) {
+                chars = new char[row.length() * 2];
+            }
+            row.getChars(0, row.length(), chars, 0);
+            writer.write(chars, 0, row.length());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,368 @@
+package managers;
+
+import tasks.*;
+import utils.PersistentTreeMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Потокобезопасный менеджер, который отдаёт списки из неизменяемого снимка доски.
+ * <p>
+ * Изменения по-прежнему выполняются под блокировкой записи и, кроме основных структур,
+ * обновляют персистентную рабочую копию (O(log n) на изменение). В конце каждой операции
+ * рабочая копия публикуется одной записью в volatile-поле. Чтение получает снимок одним
+ * volatile-чтением без блокировок и без копирования, и любой список внутри снимка согласован
+ * с остальными на момент публикации.
+ * <p>
+ * Задачи и подзадачи менеджер на месте не меняет (обновление заменяет объект), а эпик меняется
+ * при каждом изменении его подзадач. Поэтому в рабочую копию кладётся копия эпика, которая заново
+ * снимается при каждом его изменении (копирование при записи): опубликованный снимок, включая
+ * эпики, после публикации не меняется. Цена — O(число подзадач эпика) на изменение его подзадачи.
+ */
+public class SnapshotTaskManager extends ConcurrentTaskManager {
+    private volatile BoardSnapshot snapshot = BoardSnapshot.EMPTY;
+
+    // Рабочая копия, меняется только под блокировкой записи
+    private PersistentTreeMap<Integer, Task> workingTasks = BoardSnapshot.EMPTY.tasks;
+    private PersistentTreeMap<Integer, Epic> workingEpics = BoardSnapshot.EMPTY.epics;
+    private PersistentTreeMap<Integer, Subtask> workingSubtasks = BoardSnapshot.EMPTY.subtasks;
+    private PersistentTreeMap<Task, Task> workingPrioritized = BoardSnapshot.EMPTY.prioritized;
+    private PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> workingEpicSubtasks =
+            BoardSnapshot.EMPTY.epicSubtasks;
+
+    public SnapshotTaskManager() {
+        super();
+    }
+
+    public SnapshotTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    // Текущая опубликованная версия доски
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    protected void addToPrioritized(Task task) {
+        super.addToPrioritized(task);
+        workingPrioritized = workingPrioritized.put(task, task);
+    }
+
+    @Override
+    protected void addCheckedToPrioritized(List<? extends Task> checked) {
+        super.addCheckedToPrioritized(checked);
+        for (Task task : checked) {
+            workingPrioritized = workingPrioritized.put(task, task);
+        }
+    }
+
+    @Override
+    protected void removeFromPrioritized(Task task) {
+        super.removeFromPrioritized(task);
+        workingPrioritized = workingPrioritized.remove(task);
+    }
+
+    // Перенести в рабочую копию текущее состояние задачи с данным id
+    private void syncTask(int id) {
+        Task task = tasks.get(id);
+        workingTasks = task != null ? workingTasks.put(id, task) : workingTasks.remove(id);
+    }
+
+    // Положить в рабочую копию новую копию эпика: уже опубликованная версия остаётся неизменной
+    private void syncEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            workingEpics = workingEpics.put(id, epic.copy());
+        } else {
+            workingEpics = workingEpics.remove(id);
+            workingEpicSubtasks = workingEpicSubtasks.remove(id);
+        }
+    }
+
+    // Перенести подзадачи в рабочую копию и один раз переснять каждый затронутый эпик
+    private void syncSubtasks(Collection<Integer> ids) {
+        Set<Integer> changedEpics = new LinkedHashSet<>();
+        for (int id : ids) {
+            syncSubtask(id, changedEpics);
+        }
+        for (int epicId : changedEpics) {
+            syncEpic(epicId);
+        }
+    }
+
+    private void syncSubtask(int id, Set<Integer> changedEpics) {
+        Subtask previous = workingSubtasks.get(id);
+        Subtask current = subtasks.get(id);
+        if (previous != null) {
+            updateEpicMembers(previous.getEpicId(), id, null);
+            changedEpics.add(previous.getEpicId());
+        }
+        if (current != null) {
+            workingSubtasks = workingSubtasks.put(id, current);
+            updateEpicMembers(current.getEpicId(), id, current);
+            changedEpics.add(current.getEpicId());
+        } else {
+            workingSubtasks = workingSubtasks.remove(id);
+        }
+    }
+
+    private void updateEpicMembers(int epicId, int subtaskId, Subtask subtask) {
+        PersistentTreeMap<Integer, Subtask> members = workingEpicSubtasks.get(epicId);
+        if (members == null) {
+            if (subtask == null || !epics.containsKey(epicId)) {
+                return;
+            }
+            members = PersistentTreeMap.empty();
+        }
+        members = subtask != null ? members.put(subtaskId, subtask) : members.remove(subtaskId);
+        workingEpicSubtasks = workingEpicSubtasks.put(epicId, members);
+    }
+
+    private void publish() {
+        snapshot = new BoardSnapshot(workingTasks, workingEpics, workingSubtasks,
+                workingPrioritized, workingEpicSubtasks);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = snapshot.getTask(id);
+        if (task != null) historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = snapshot.getEpic(id);
+        if (epic != null) historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        Subtask subtask = snapshot.getSubtask(id);
+        if (subtask != null) historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return snapshot.getTasks();
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return snapshot.getEpics();
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return snapshot.getSubtasks();
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return snapshot.getTasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return snapshot.getEpicsPage(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return snapshot.getSubtasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return snapshot.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return snapshot.getPrioritizedTasks();
+    }
+
+    // Эпики в истории — копии из снимков, их уже никто не меняет: копировать под блокировкой не нужно
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return write(() -> {
+            try {
+                return super.addNewTask(task);
+            } finally {
+                syncTask(task.getId());
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        return write(() -> {
+            try {
+                return super.addNewEpic(epic);
+            } finally {
+                syncEpic(epic.getId());
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        return write(() -> {
+            try {
+                return super.addNewSubtask(subtask);
+            } finally {
+                syncSubtasks(List.of(subtask.getId()));
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public BatchResult addNewTasks(List<Task> batch) {
+        return write(() -> {
+            BatchResult result = super.addNewTasks(batch);
+            for (int id : result.getIds()) {
+                syncTask(id);
+            }
+            publish();
+            return result;
+        });
+    }
+
+    @Override
+    public BatchResult addNewEpics(List<Epic> batch) {
+        return write(() -> {
+            BatchResult result = super.addNewEpics(batch);
+            for (int id : result.getIds()) {
+                syncEpic(id);
+            }
+            publish();
+            return result;
+        });
+    }
+
+    @Override
+    public BatchResult addNewSubtasks(List<Subtask> batch) {
+        return write(() -> {
+            BatchResult result = super.addNewSubtasks(batch);
+            syncSubtasks(result.getIds());
+            publish();
+            return result;
+        });
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> {
+            try {
+                super.updateTask(task);
+            } finally {
+                syncTask(task.getId());
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> {
+            try {
+                super.updateEpic(epic);
+            } finally {
+                syncEpic(epic.getId());
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> {
+            try {
+                super.updateSubtask(subtask);
+            } finally {
+                syncSubtasks(List.of(subtask.getId()));
+                publish();
+            }
+        });
+    }
+
+    @Override
+    public void removeTask(int id) {
+        write(() -> {
+            super.removeTask(id);
+            syncTask(id);
+            publish();
+        });
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        write(() -> {
+            List<Integer> members = new ArrayList<>();
+            for (Subtask subtask : snapshot.getEpicSubtasks(id)) {
+                members.add(subtask.getId());
+            }
+            super.removeEpic(id);
+            syncSubtasks(members);
+            syncEpic(id);
+            publish();
+        });
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        write(() -> {
+            super.removeSubtask(id);
+            syncSubtasks(List.of(id));
+            publish();
+        });
+    }
+
+    @Override
+    public void removeAllTasks() {
+        write(() -> {
+            super.removeAllTasks();
+            workingTasks = workingTasks.clear();
+            publish();
+        });
+    }
+
+    @Override
+    public void removeAllEpics() {
+        write(() -> {
+            super.removeAllEpics();
+            workingEpics = workingEpics.clear();
+            workingSubtasks = workingSubtasks.clear();
+            workingEpicSubtasks = workingEpicSubtasks.clear();
+            publish();
+        });
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        write(() -> {
+            super.removeAllSubtasks();
+            workingSubtasks = workingSubtasks.clear();
+            workingEpicSubtasks = workingEpicSubtasks.clear();
+            for (Epic epic : epics.values()) {
+                workingEpics = workingEpics.put(epic.getId(), epic.copy());
+            }
+            publish();
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package managers;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * Представление уже отсортированного списка без повторов как SortedSet.
+ * <p>
+ * Нужно только для быстрой загрузки: TreeSet.addAll в пустое множество с тем же компаратором
+ * строит дерево из SortedSet за O(n) вместо n вставок по O(log n). Только для чтения;
+ * contains и границы subSet, headSet и tailSet ищутся двоичным поиском, а сами поднаборы —
+ * представления над subList. Ключи вне диапазона поднабора не отвергаются, а просто дают
+ * пустой или урезанный поднабор.
+ */
+final class SortedListView<E> extends AbstractSet<E> implements SortedSet<E> {
+    private final List<E> sorted;
+    private final Comparator<? super E> comparator;
+
+    SortedListView(List<E> sorted, Comparator<? super E> comparator) {
+        this.sorted = sorted;
+        this.comparator = comparator;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return sorted.iterator();
+    }
+
+    @Override
+    public int size() {
+        return sorted.size();
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        @SuppressWarnings("unchecked")
+        E element = (E) o;
+        int i = ceiling(element);
+        return i < sorted.size() && compare(sorted.get(i), element) == 0;
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("Начало поднабора больше конца");
+        }
+        return new SortedListView<>(sorted.subList(ceiling(fromElement), ceiling(toElement)), comparator);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return new SortedListView<>(sorted.subList(0, ceiling(toElement)), comparator);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return new SortedListView<>(sorted.subList(ceiling(fromElement), sorted.size()), comparator);
+    }
+
+    @Override
+    public E first() {
+        if (sorted.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return sorted.get(0);
+    }
+
+    @Override
+    public E last() {
+        if (sorted.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return sorted.get(sorted.size() - 1);
+    }
+
+    // Первая позиция с элементом не меньше element
+    private int ceiling(E element) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(sorted.get(mid), element) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Без компаратора — естественный порядок, как в TreeSet
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<? super E>) a).compareTo(b);
+    }
+}
@@ -2,6 +2,8 @@ package managers;
 
 import tasks.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskManager {
@@ -23,6 +25,15 @@ public interface TaskManager {
     // Получить список всех подзадач
     List<Subtask> getSubtasks();
 
+    // Получить до limit задач с id больше afterId, в порядке id
+    List<Task> getTasksPage(int afterId, int limit);
+
+    // Получить до limit эпиков с id больше afterId, в порядке id
+    List<Epic> getEpicsPage(int afterId, int limit);
+
+    // Получить до limit подзадач с id больше afterId, в порядке id
+    List<Subtask> getSubtasksPage(int afterId, int limit);
+
     // Получить историю просмотров
     List<Task> getHistory();
 
@@ -35,6 +46,15 @@ public interface TaskManager {
     // Добавить новую подзадачу
     int addNewSubtask(Subtask subtask);
 
+    // Добавить пакет задач целиком или, при конфликтах по времени, не добавить ничего
+    BatchResult addNewTasks(List<Task> batch);
+
+    // Добавить пакет эпиков
+    BatchResult addNewEpics(List<Epic> batch);
+
+    // Добавить пакет подзадач целиком или, при конфликтах (время, несуществующий эпик), не добавить ничего
+    BatchResult addNewSubtasks(List<Subtask> batch);
+
     // Обновить задачу
     void updateTask(Task task);
 
@@ -68,4 +88,7 @@ public interface TaskManager {
     // Получить задачи в порядке приоритета
     List<Task> getPrioritizedTasks();
 
+    // Найти до limit свободных промежутков длиной duration, начиная с after
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime after, int limit);
+
 }
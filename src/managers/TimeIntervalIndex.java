@@ -0,0 +1,195 @@
+package managers;
+
+import tasks.BatchResult;
+import tasks.Task;
+import tasks.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Индекс временных интервалов [startTime, endTime) запланированных задач.
+ * <p>
+ * Менеджер не допускает пересечений, поэтому в порядке (начало, конец, id) концы интервалов
+ * не убывают. Значит, для проверки нового интервала [start, end) достаточно одного соседа —
+ * последнего интервала, начинающегося раньше end: пересечение есть тогда и только тогда,
+ * когда он заканчивается позже start. Проверка, добавление и удаление работают за O(log n).
+ */
+public class TimeIntervalIndex {
+    private final TreeSet<Interval> intervals = new TreeSet<>();
+
+    // Задача участвует в проверке пересечений, только если у неё есть и начало, и длительность
+    public static boolean isScheduled(Task task) {
+        return task.getStartTime() != null && task.getDuration() != null;
+    }
+
+    // Проверить, пересекается ли задача с каким-либо интервалом индекса
+    public boolean hasOverlap(Task task) {
+        return isScheduled(task) && overlapping(task.getStartTime(), task.getEndTime()) != null;
+    }
+
+    // Интервал индекса, пересекающийся с [start, end), или null — один поиск lower() за O(log n)
+    private Interval overlapping(LocalDateTime start, LocalDateTime end) {
+        Interval previous = intervals.lower(new Interval(end, end, Integer.MIN_VALUE));
+        return previous != null && previous.end.isAfter(start) ? previous : null;
+    }
+
+    /**
+     * Найти до limit свободных промежутков длиной не меньше duration, начиная с момента after.
+     * Обходит интервалы по порядку от after и останавливается, как только найдено limit промежутков,
+     * поэтому время работы пропорционально числу просмотренных интервалов, а не размеру расписания.
+     * Последний промежуток после всех задач открыт справа (end == null).
+     */
+    public List<TimeSlot> findFreeSlots(LocalDateTime after, Duration duration, int limit) {
+        List<TimeSlot> result = new ArrayList<>();
+        Interval from = new Interval(after, after, Integer.MIN_VALUE);
+        LocalDateTime cursor = after;
+        Interval previous = intervals.lower(from);
+        if (previous != null && previous.end.isAfter(cursor)) {
+            cursor = previous.end;
+        }
+        for (Interval interval : intervals.tailSet(from, true)) {
+            if (!cursor.plus(duration).isAfter(interval.start)) {
+                result.add(new TimeSlot(cursor, interval.start));
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+            if (interval.end.isAfter(cursor)) {
+                cursor = interval.end;
+            }
+        }
+        result.add(new TimeSlot(cursor, null));
+        return result;
+    }
+
+    /**
+     * Найти задачи пакета, которые пересекаются по времени с индексом или друг с другом.
+     * Пакет сортируется один раз и проходится по порядку: каждый интервал проверяется одним поиском
+     * по индексу и сравнивается с ранее встреченным интервалом пакета с наибольшим концом.
+     * Итого O(m log m + m log n) для пакета из m задач и индекса из n интервалов; индекс не меняется.
+     * Конфликт записывается на более поздний из двух пересекающихся элементов пакета.
+     */
+    public List<BatchResult.Conflict> findOverlaps(List<? extends Task> batch) {
+        List<BatchResult.Conflict> conflicts = new ArrayList<>();
+        Interval latest = null;
+        for (Interval interval : sortedByIndex(batch)) {
+            Interval existing = overlapping(interval.start, interval.end);
+            if (existing != null) {
+                conflicts.add(new BatchResult.Conflict(interval.id, existing.id, null,
+                        "Пересечение по времени с задачей " + existing.id));
+            } else if (latest != null && latest.end.isAfter(interval.start) && latest.start.isBefore(interval.end)) {
+                conflicts.add(new BatchResult.Conflict(interval.id, null, latest.id,
+                        "Пересечение по времени с элементом пакета " + latest.id));
+            }
+            if (latest == null || interval.end.isAfter(latest.end)) {
+                latest = interval;
+            }
+        }
+        conflicts.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return conflicts;
+    }
+
+    // Интервалы запланированных задач пакета, где вместо id — позиция в пакете, в порядке (начало, конец, позиция)
+    private static List<Interval> sortedByIndex(List<? extends Task> batch) {
+        List<Interval> result = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Task task = batch.get(i);
+            if (isScheduled(task)) {
+                result.add(new Interval(task.getStartTime(), task.getEndTime(), i));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Проверить, что задачи не пересекаются ни с индексом, ни друг с другом (см. findOverlaps).
+     *
+     * @throws IllegalArgumentException с id первой найденной пары пересекающихся задач
+     */
+    public void requireNoOverlaps(List<? extends Task> tasks) {
+        List<BatchResult.Conflict> conflicts = findOverlaps(tasks);
+        if (!conflicts.isEmpty()) {
+            BatchResult.Conflict conflict = conflicts.get(0);
+            int other = conflict.getConflictingId() != null
+                    ? conflict.getConflictingId()
+                    : tasks.get(conflict.getConflictingIndex()).getId();
+            throw new IllegalArgumentException("Пересечение задач по времени! id "
+                    + other + " и " + tasks.get(conflict.getIndex()).getId());
+        }
+    }
+
+    /**
+     * Добавить сразу много задач, уже проверенных через findOverlaps или requireNoOverlaps.
+     * В пустой индекс дерево собирается из отсортированного списка за O(n), иначе — вставками по O(log n).
+     */
+    public void addAllChecked(List<? extends Task> tasks) {
+        List<Interval> added = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (isScheduled(task)) {
+                added.add(new Interval(task));
+            }
+        }
+        if (intervals.isEmpty()) {
+            Collections.sort(added);
+            intervals.addAll(new SortedListView<>(added, null));
+        } else {
+            intervals.addAll(added);
+        }
+    }
+
+    public void add(Task task) {
+        if (isScheduled(task)) {
+            intervals.add(new Interval(task));
+        }
+    }
+
+    public void remove(Task task) {
+        if (isScheduled(task)) {
+            intervals.remove(new Interval(task));
+        }
+    }
+
+    public void clear() {
+        intervals.clear();
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    // Интервал хранит вычисленный конец, чтобы сравнения не создавали новых LocalDateTime
+    private static final class Interval implements Comparable<Interval> {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int id;
+
+        Interval(Task task) {
+            this(task.getStartTime(), task.getEndTime(), task.getId());
+        }
+
+        Interval(LocalDateTime start, LocalDateTime end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            int result = start.compareTo(other.start);
+            if (result != 0) {
+                return result;
+            }
+            result = end.compareTo(other.end);
+            if (result != 0) {
+                return result;
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+}
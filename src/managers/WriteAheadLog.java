@@ -0,0 +1,242 @@
+package managers;
+
+import tasks.Task;
+import tasks.TaskType;
+import utils.CsvUtil;
+import utils.MappedLineReader;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Журнал изменений менеджера: по одной строке на операцию.
+ * <pre>
+ * PUT,&lt;строка CSV задачи&gt;   — добавление или обновление
+ * DEL,&lt;тип&gt;,&lt;id&gt;          — удаление по id
+ * CLEAR,&lt;тип&gt;              — удаление всех задач типа
+ * </pre>
+ * Все операции идемпотентны, поэтому журнал можно повторно применить к снимку,
+ * который уже содержит часть его изменений.
+ * <p>
+ * Записи пишутся через {@link GroupCommitWriter}: записи параллельных операций объединяются
+ * в одну пачку с одним fsync, а надёжность задаётся уровнем {@link GroupCommitWriter.Durability}.
+ * <p>
+ * Для компакции журнал состоит из двух сегментов: активного (file) и закрытого (file + ".1").
+ * {@link #rotate()} закрывает активный сегмент, после записи снимка закрытый сегмент удаляется
+ * через {@link #deleteSealed()}. При загрузке сначала применяется закрытый сегмент, затем активный.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DEL";
+    private static final String CLEAR = "CLEAR";
+
+    // Интервал fsync по умолчанию для FSYNC_INTERVAL, мс
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+    private final File file;
+    private final File sealedFile;
+    private final GroupCommitWriter.Durability durability;
+    private final long syncIntervalMillis;
+    private GroupCommitWriter writer;
+
+    public WriteAheadLog(File file) {
+        this(file, GroupCommitWriter.Durability.FSYNC_PER_BATCH, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public WriteAheadLog(File file, GroupCommitWriter.Durability durability, long syncIntervalMillis) {
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Интервал fsync должен быть положительным");
+        }
+        this.file = file;
+        this.sealedFile = new File(file.getPath() + ".1");
+        this.durability = durability;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Суммарный размер обоих сегментов журнала в байтах
+    public long size() {
+        return file.length() + sealedFile.length();
+    }
+
+    public static String putRecord(Task task) {
+        return CsvUtil.appendCsv(new StringBuilder(PUT).append(','), task).toString();
+    }
+
+    public static String removeRecord(TaskType type, int id) {
+        return DELETE + "," + type + "," + id;
+    }
+
+    public static String clearRecord(TaskType type) {
+        return CLEAR + "," + type;
+    }
+
+    public GroupCommitWriter.Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Поставить запись в конец журнала. Порядок записей совпадает с порядком вызовов.
+     * Возвращённый future завершается, когда запись надёжна в смысле уровня durability;
+     * ждать его можно вне блокировок, чтобы параллельные операции попали в одну пачку.
+     */
+    public synchronized CompletableFuture<Void> append(String record) {
+        return writer().append(record);
+    }
+
+    private GroupCommitWriter writer() {
+        if (writer == null) {
+            try {
+                writer = new GroupCommitWriter(file.toPath(), durability, syncIntervalMillis);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка открытия журнала", e);
+            }
+        }
+        return writer;
+    }
+
+    // Дождаться подтверждения записи; ошибка ввода-вывода пишущего потока пробрасывается вызывающему
+    public static void await(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал", e.getCause());
+        }
+    }
+
+    /**
+     * Применить журнал к записям, загруженным из снимка.
+     * Удалённый эпик убирается без своих подзадач: подзадачи без эпика отбрасываются при восстановлении.
+     * <p>
+     * Применяются только записи, завершённые переводом строки: запись без него не была подтверждена
+     * (сбой во время записи). Такой хвост обрезается, чтобы следующая запись, открывающая файл
+     * на дозапись, не склеилась с ним в одну строку.
+     *
+     * @return наибольший id, встретившийся в журнале (0, если журнал пуст)
+     */
+    public synchronized int replay(Map<Integer, Task> records) {
+        return Math.max(replay(sealedFile, records), replay(file, records));
+    }
+
+    private static int replay(File file, Map<Integer, Task> records) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int[] maxId = {0};
+        try {
+            long end = MappedLineReader.forEachCompleteRecord(file.toPath(), record -> {
+                if (!record.isEmpty()) {
+                    maxId[0] = Math.max(maxId[0], applyStrict(record, records));
+                }
+            });
+            if (end < file.length()) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                    channel.force(false);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+        return maxId[0];
+    }
+
+    private static int applyStrict(String record, Map<Integer, Task> records) {
+        try {
+            return apply(record, records);
+        } catch (RuntimeException e) {
+            throw new ManagerSaveException("Повреждённая запись журнала: " + record, e);
+        }
+    }
+
+    private static int apply(String line, Map<Integer, Task> records) {
+        int comma = line.indexOf(',');
+        String op = line.substring(0, comma);
+        String payload = line.substring(comma + 1);
+        switch (op) {
+            case PUT: {
+                Task task = CsvUtil.fromCsvTask(payload);
+                records.put(task.getId(), task);
+                return task.getId();
+            }
+            case DELETE: {
+                String[] fields = payload.split(",");
+                TaskType.valueOf(fields[0]);
+                int id = Integer.parseInt(fields[1]);
+                records.remove(id);
+                return id;
+            }
+            case CLEAR: {
+                TaskType type = TaskType.valueOf(payload);
+                records.values().removeIf(task -> task.getType() == type
+                        || (type == TaskType.EPIC && task.getType() == TaskType.SUBTASK));
+                return 0;
+            }
+            default:
+                throw new IllegalArgumentException("Неизвестная операция журнала: " + op);
+        }
+    }
+
+    // Очистить журнал после того, как его изменения попали в снимок
+    public synchronized void truncate() {
+        if (writer != null) {
+            await(writer.truncate());
+            return;
+        }
+        try {
+            new FileOutputStream(file, false).close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка очистки журнала", e);
+        }
+    }
+
+    /**
+     * Закрыть активный сегмент: дописать очередь и переименовать файл в закрытый сегмент.
+     * Следующая запись откроет новый активный сегмент. Если закрытый сегмент остался от прерванной
+     * компакции, активный дописывается в его конец — порядок записей сохраняется.
+     * Вызывающий должен гарантировать, что параллельно в журнал никто не пишет.
+     */
+    public synchronized void rotate() {
+        try {
+            close();
+            if (!file.exists()) {
+                return;
+            }
+            if (sealedFile.exists()) {
+                Files.write(sealedFile.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                Files.delete(file.toPath());
+            } else {
+                Files.move(file.toPath(), sealedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка ротации журнала", e);
+        }
+    }
+
+    // Удалить закрытый сегмент, когда его изменения уже есть в снимке
+    public synchronized void deleteSealed() {
+        try {
+            Files.deleteIfExists(sealedFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка удаления сегмента журнала", e);
+        }
+    }
+
+    // Дописывает всё поставленное в очередь и останавливает пишущий поток
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
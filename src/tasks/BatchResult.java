@@ -0,0 +1,89 @@
+package tasks;
+
+import java.util.Collections;
+import java.util.List;
+
+// Результат пакетного добавления: либо добавлены все элементы (ids в порядке пакета), либо ни один (conflicts)
+public class BatchResult {
+    private final List<Integer> ids;
+    private final List<Conflict> conflicts;
+
+    private BatchResult(List<Integer> ids, List<Conflict> conflicts) {
+        this.ids = ids;
+        this.conflicts = conflicts;
+    }
+
+    public static BatchResult accepted(List<Integer> ids) {
+        return new BatchResult(Collections.unmodifiableList(ids), Collections.emptyList());
+    }
+
+    public static BatchResult rejected(List<Conflict> conflicts) {
+        return new BatchResult(Collections.emptyList(), Collections.unmodifiableList(conflicts));
+    }
+
+    public boolean isAccepted() {
+        return conflicts.isEmpty();
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "ids=" + ids +
+                ", conflicts=" + conflicts +
+                '}';
+    }
+
+    /**
+     * Элемент пакета, из-за которого пакет отклонён.
+     * index — позиция элемента в пакете; conflictingId — id уже существующей задачи, с которой он
+     * пересекается по времени, или null; conflictingIndex — позиция другого элемента того же пакета,
+     * с которым он пересекается, или null.
+     */
+    public static class Conflict {
+        private final int index;
+        private final Integer conflictingId;
+        private final Integer conflictingIndex;
+        private final String reason;
+
+        public Conflict(int index, Integer conflictingId, Integer conflictingIndex, String reason) {
+            this.index = index;
+            this.conflictingId = conflictingId;
+            this.conflictingIndex = conflictingIndex;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Integer getConflictingId() {
+            return conflictingId;
+        }
+
+        public Integer getConflictingIndex() {
+            return conflictingIndex;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Conflict{" +
+                    "index=" + index +
+                    ", conflictingId=" + conflictingId +
+                    ", conflictingIndex=" + conflictingIndex +
+                    ", reason='" + reason + '\'' +
+                    '}';
+        }
+    }
+}
@@ -1,14 +1,38 @@
 package tasks;
 
+import com.google.gson.annotations.JsonAdapter;
+import utils.SubtaskMapAdapter;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    private final List<Subtask> subtasks = new ArrayList<>();
+    // Подзадачи по id в порядке добавления; в JSON по-прежнему передаются массивом
+    @JsonAdapter(SubtaskMapAdapter.class)
+    private final Map<Integer, Subtask> subtasks = new LinkedHashMap<>();
     private LocalDateTime endTime;
 
+    // Накопленные агрегаты по подзадачам: обновляются при каждом изменении за O(log n)
+    // и не попадают в JSON. Для каждой подзадачи запоминается вклад, внесённый в агрегаты,
+    // чтобы корректно вычесть его, даже если объект подзадачи изменили на месте.
+    private final transient Map<Integer, Contribution> contributions = new HashMap<>();
+    private final transient int[] statusCounts = new int[TaskStatus.values().length];
+    private final transient TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final transient TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private transient Duration totalDuration = Duration.ZERO;
+
+    // Конструктор для Gson: инициализирует служебные поля, которые не приходят в JSON
+    private Epic() {
+        this("", "");
+    }
+
     public Epic(String name, String description) {
         super(name, description, TaskStatus.NEW, Duration.ZERO, null);
     }
@@ -17,59 +41,141 @@ public class Epic extends Task {
         super(id, name, description, TaskStatus.NEW, Duration.ZERO, null);
     }
 
+    // Добавить подзадачу или заменить её прежнюю версию с тем же id (позиция сохраняется)
     public void addSubtask(Subtask subtask) {
-        subtasks.add(subtask);
-        recalculateTimeAndDuration();
+        subtasks.put(subtask.getId(), subtask);
+        contribute(subtask);
+        applyAggregates();
     }
 
     public void removeSubtask(Subtask subtask) {
-        subtasks.remove(subtask);
-        recalculateTimeAndDuration();
+        removeSubtask(subtask.getId());
+    }
+
+    public void removeSubtask(int subtaskId) {
+        if (subtasks.remove(subtaskId) != null) {
+            withdraw(subtaskId);
+            applyAggregates();
+        }
     }
 
     public void clearSubtasks() {
         subtasks.clear();
-        recalculateTimeAndDuration();
+        resetAggregates();
+        applyAggregates();
+    }
+
+    // Независимая копия эпика вместе с подзадачами и агрегатами: изменения оригинала её не затрагивают
+    public Epic copy() {
+        Epic copy = new Epic(id, name, description);
+        copy.status = status;
+        copy.startTime = startTime;
+        copy.duration = duration;
+        copy.endTime = endTime;
+        copy.subtasks.putAll(subtasks);
+        copy.contributions.putAll(contributions);
+        System.arraycopy(statusCounts, 0, copy.statusCounts, 0, statusCounts.length);
+        copy.startTimes.putAll(startTimes);
+        copy.endTimes.putAll(endTimes);
+        copy.totalDuration = totalDuration;
+        return copy;
     }
 
-    public List<Subtask> getSubtasks() {
-        return subtasks;
+    // Подзадачи эпика в порядке добавления (только для чтения)
+    public Collection<Subtask> getSubtasks() {
+        return Collections.unmodifiableCollection(subtasks.values());
     }
 
-    // Пересчитать время начала и длительность эпика на основе подзадач
+    public boolean containsSubtask(int subtaskId) {
+        return subtasks.containsKey(subtaskId);
+    }
+
+    // Вычислить статус эпика по счётчикам статусов подзадач
+    public TaskStatus calculateStatus() {
+        int total = subtasks.size();
+        if (total == 0 || statusCounts[TaskStatus.NEW.ordinal()] == total) {
+            return TaskStatus.NEW;
+        }
+        if (statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    // Полностью пересчитать время начала и длительность эпика на основе подзадач
     public void recalculateTimeAndDuration() {
-        if (subtasks.isEmpty()) {
-            setStartTime(null);
-            setDuration(Duration.ZERO);
-            endTime = null;
-            return;
+        resetAggregates();
+        for (Subtask s : subtasks.values()) {
+            contribute(s);
         }
-        LocalDateTime minStart = LocalDateTime.MAX;
-        LocalDateTime maxEnd = LocalDateTime.MIN;
-        Duration totalDuration = Duration.ZERO;
-
-        for (Subtask s : subtasks) {
-            if (s.getStartTime() != null) {
-                if (s.getStartTime().isBefore(minStart)) {
-                    minStart = s.getStartTime();
-                }
-                LocalDateTime subEnd = s.getEndTime();
-                if (subEnd != null && subEnd.isAfter(maxEnd)) {
-                    maxEnd = subEnd;
-                }
-            }
-            if (s.getDuration() != null) {
-                totalDuration = totalDuration.plus(s.getDuration());
-            }
+        applyAggregates();
+    }
+
+    private void contribute(Subtask subtask) {
+        Contribution contribution = new Contribution(subtask);
+        Contribution previous = contributions.put(subtask.getId(), contribution);
+        if (previous != null) {
+            previous.apply(this, -1);
         }
+        contribution.apply(this, 1);
+    }
+
+    private void withdraw(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution != null) {
+            contribution.apply(this, -1);
+        }
+    }
 
-        // Если minStart не изменился, значит не было ни одной подзадачи с датой старта
-        setStartTime(minStart.equals(LocalDateTime.MAX) ? null : minStart);
-        // Если maxEnd не изменился, значит не было ни одной подзадачи с датой окончания
-        endTime = maxEnd.equals(LocalDateTime.MIN) ? null : maxEnd;
+    private void resetAggregates() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        startTimes.clear();
+        endTimes.clear();
+        totalDuration = Duration.ZERO;
+    }
+
+    // Перенести агрегаты в поля эпика
+    private void applyAggregates() {
+        setStartTime(startTimes.isEmpty() ? null : startTimes.firstKey());
+        endTime = endTimes.isEmpty() ? null : endTimes.lastKey();
         setDuration(totalDuration);
     }
 
+    private static void adjustCount(TreeMap<LocalDateTime, Integer> counts, LocalDateTime key, int delta) {
+        if (key != null) {
+            counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    // Вклад одной подзадачи в агрегаты эпика на момент добавления
+    private static final class Contribution {
+        final TaskStatus status;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Duration duration;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus();
+            this.start = subtask.getStartTime();
+            this.end = subtask.getEndTime();
+            this.duration = subtask.getDuration();
+        }
+
+        void apply(Epic epic, int sign) {
+            if (status != null) {
+                epic.statusCounts[status.ordinal()] += sign;
+            }
+            adjustCount(epic.startTimes, start, sign);
+            adjustCount(epic.endTimes, end, sign);
+            if (duration != null) {
+                epic.totalDuration = sign > 0
+                        ? epic.totalDuration.plus(duration)
+                        : epic.totalDuration.minus(duration);
+            }
+        }
+    }
+
     @Override
     public LocalDateTime getStartTime() {
         return startTime;
@@ -0,0 +1,434 @@
+package utils;
+
+import tasks.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Двоичный формат снимка задач.
+ * <pre>
+ * файл   := "KNBN" версия:u8 флаги:u8 блок* 0
+ * блок   := длина:varint [сжатая_длина:varint, если флаг DEFLATE] байты
+ * запись := тип:u8 id:varint статус:u8 имя:строка описание:строка поля:u8
+ *           [начало:zigzag-varlong] [длительность_мин:zigzag-varlong] [epicId:varint — для подзадач]
+ * строка := (длина_в_байтах + 1):varint UTF-8 (0 — null)
+ * </pre>
+ * Начало хранится в минутах от эпохи (UTC), а если у времени есть секунды — в секундах
+ * (флаг START_SECONDS); доли секунды, как и в CSV, не сохраняются. У эпиков время и длительность
+ * вычисляются из подзадач, поэтому не пишутся. Записи группируются в блоки примерно по BLOCK_SIZE байт;
+ * с флагом DEFLATE каждый блок сжимается отдельно, так что чтение идёт блок за блоком
+ * и не держит в памяти весь файл. Нулевая длина блока отмечает конец файла: файл без неё — обрезан.
+ */
+public final class BinaryTaskCodec {
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final int FLAG_DEFLATE = 1;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int HAS_START = 1;
+    private static final int HAS_DURATION = 2;
+    private static final int START_SECONDS = 4;
+
+    private BinaryTaskCodec() {
+    }
+
+    // Начинаются ли данные с сигнатуры двоичного формата
+    public static boolean hasMagic(byte[] head, int length) {
+        return length >= MAGIC.length && Arrays.equals(head, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    public static int magicLength() {
+        return MAGIC.length;
+    }
+
+    // Записать задачи в поток; compress — сжимать блоки Deflate
+    public static void write(OutputStream out, Iterable<? extends Task> tasks, boolean compress) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(compress ? FLAG_DEFLATE : 0);
+        ByteSink block = new ByteSink(BLOCK_SIZE + 1024);
+        ByteSink header = new ByteSink(16);
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        byte[] compressed = compress ? new byte[BLOCK_SIZE * 2] : null;
+        try {
+            for (Task task : tasks) {
+                writeTask(block, task);
+                if (block.length >= BLOCK_SIZE) {
+                    compressed = flushBlock(out, block, header, deflater, compressed);
+                }
+            }
+            if (block.length > 0) {
+                flushBlock(out, block, header, deflater, compressed);
+            }
+            header.length = 0;
+            header.writeVarint(0);
+            out.write(header.bytes, 0, header.length);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static byte[] flushBlock(OutputStream out, ByteSink block, ByteSink header,
+                                     Deflater deflater, byte[] compressed) throws IOException {
+        header.length = 0;
+        header.writeVarint(block.length);
+        if (deflater == null) {
+            out.write(header.bytes, 0, header.length);
+            out.write(block.bytes, 0, block.length);
+        } else {
+            deflater.reset();
+            deflater.setInput(block.bytes, 0, block.length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            header.writeVarint(size);
+            out.write(header.bytes, 0, header.length);
+            out.write(compressed, 0, size);
+        }
+        block.length = 0;
+        return compressed;
+    }
+
+    private static void writeTask(ByteSink out, Task task) {
+        TaskType type = task.getType();
+        out.writeByte(typeCode(type));
+        out.writeVarint(task.getId());
+        out.writeByte(statusCode(task.getStatus()));
+        out.writeString(task.getName());
+        out.writeString(task.getDescription());
+        if (type == TaskType.EPIC) {
+            out.writeByte(0);
+            return;
+        }
+        LocalDateTime start = task.getStartTime();
+        Duration duration = task.getDuration();
+        int fields = 0;
+        long startValue = 0;
+        if (start != null) {
+            fields |= HAS_START;
+            long seconds = start.toEpochSecond(ZoneOffset.UTC);
+            if (seconds % 60 == 0) {
+                startValue = seconds / 60;
+            } else {
+                fields |= START_SECONDS;
+                startValue = seconds;
+            }
+        }
+        if (duration != null) {
+            fields |= HAS_DURATION;
+        }
+        out.writeByte(fields);
+        if (start != null) {
+            out.writeVarlong(zigzag(startValue));
+        }
+        if (duration != null) {
+            out.writeVarlong(zigzag(duration.toMinutes()));
+        }
+        if (type == TaskType.SUBTASK) {
+            out.writeVarint(((Subtask) task).getEpicId());
+        }
+    }
+
+    /**
+     * Прочитать задачи из потока и передать каждую обработчику в порядке записи.
+     *
+     * @throws IOException при неверной сигнатуре, неизвестной версии или обрезанном файле
+     */
+    public static void read(InputStream in, Consumer<Task> action) throws IOException {
+        DataInputStream data = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+        byte[] head = new byte[MAGIC.length + 2];
+        data.readFully(head);
+        if (!hasMagic(head, head.length)) {
+            throw new IOException("Файл не в двоичном формате задач");
+        }
+        if (head[MAGIC.length] != VERSION) {
+            throw new IOException("Неподдерживаемая версия двоичного формата: " + head[MAGIC.length]);
+        }
+        boolean compressed = (head[MAGIC.length + 1] & FLAG_DEFLATE) != 0;
+        Inflater inflater = compressed ? new Inflater() : null;
+        byte[] packed = new byte[0];
+        ByteReader block = new ByteReader(new byte[BLOCK_SIZE * 2]);
+        try {
+            while (true) {
+                int length = readVarint(data);
+                if (length == 0) {
+                    return;
+                }
+                if (length < 0) {
+                    throw new IOException("Некорректная длина блока: " + length);
+                }
+                if (block.bytes.length < length) {
+                    block.bytes = new byte[length];
+                }
+                if (compressed) {
+                    int packedLength = readVarint(data);
+                    if (packedLength < 0) {
+                        throw new IOException("Некорректная длина сжатого блока: " + packedLength);
+                    }
+                    if (packed.length < packedLength) {
+                        packed = new byte[packedLength];
+                    }
+                    data.readFully(packed, 0, packedLength);
+                    inflate(inflater, packed, packedLength, block.bytes, length);
+                } else {
+                    data.readFully(block.bytes, 0, length);
+                }
+                block.position = 0;
+                block.limit = length;
+                while (block.position < block.limit) {
+                    action.accept(readTask(block));
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Двоичный файл задач обрезан", e);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void inflate(Inflater inflater, byte[] packed, int packedLength, byte[] target, int length)
+            throws IOException {
+        inflater.reset();
+        inflater.setInput(packed, 0, packedLength);
+        try {
+            int size = 0;
+            while (size < length && !inflater.finished()) {
+                int n = inflater.inflate(target, size, length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != length) {
+                throw new IOException("Повреждённый сжатый блок");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Повреждённый сжатый блок", e);
+        }
+    }
+
+    private static Task readTask(ByteReader in) throws IOException {
+        TaskType type = typeOf(in.readByte());
+        int id = in.readVarint();
+        TaskStatus status = statusOf(in.readByte());
+        String name = in.readString();
+        String description = in.readString();
+        int fields = in.readByte();
+        if (type == TaskType.EPIC) {
+            Epic epic = new Epic(id, name, description);
+            epic.setStatus(status);
+            return epic;
+        }
+        LocalDateTime start = null;
+        if ((fields & HAS_START) != 0) {
+            long value = unzigzag(in.readVarlong());
+            long seconds = (fields & START_SECONDS) != 0 ? value : value * 60;
+            start = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        }
+        Duration duration = (fields & HAS_DURATION) != 0
+                ? Duration.ofMinutes(unzigzag(in.readVarlong()))
+                : Duration.ZERO;
+        if (type == TaskType.SUBTASK) {
+            return new Subtask(id, name, description, status, duration, start, in.readVarint());
+        }
+        return new Task(id, name, description, status, duration, start);
+    }
+
+    // Коды типов и статусов зафиксированы форматом и не зависят от порядка констант в enum
+    private static int typeCode(TaskType type) {
+        switch (type) {
+            case TASK:
+                return 0;
+            case EPIC:
+                return 1;
+            case SUBTASK:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    private static TaskType typeOf(int code) throws IOException {
+        switch (code) {
+            case 0:
+                return TaskType.TASK;
+            case 1:
+                return TaskType.EPIC;
+            case 2:
+                return TaskType.SUBTASK;
+            default:
+                throw new IOException("Неизвестный код типа задачи: " + code);
+        }
+    }
+
+    private static int statusCode(TaskStatus status) {
+        switch (status) {
+            case NEW:
+                return 0;
+            case IN_PROGRESS:
+                return 1;
+            case DONE:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Неизвестный статус: " + status);
+        }
+    }
+
+    private static TaskStatus statusOf(int code) throws IOException {
+        switch (code) {
+            case 0:
+                return TaskStatus.NEW;
+            case 1:
+                return TaskStatus.IN_PROGRESS;
+            case 2:
+                return TaskStatus.DONE;
+            default:
+                throw new IOException("Неизвестный код статуса: " + code);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Слишком длинный varint");
+    }
+
+    // Растущий буфер записи блока
+    private static final class ByteSink {
+        byte[] bytes;
+        int length;
+
+        ByteSink(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+    }
+
+    // Чтение записей из распакованного блока
+    private static final class ByteReader {
+        byte[] bytes;
+        int position;
+        int limit;
+
+        ByteReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() throws IOException {
+            if (position >= limit) {
+                throw new IOException("Запись выходит за границу блока");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarint() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Слишком длинный varint");
+        }
+
+        long readVarlong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Слишком длинный varint");
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > limit - position) {
+                throw new IOException("Строка выходит за границу блока");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
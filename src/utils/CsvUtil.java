@@ -5,30 +5,102 @@ import tasks.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 
+/**
+ * Чтение и запись задач в CSV.
+ * <p>
+ * Формат — RFC 4180: поле, содержащее запятую, кавычку или перевод строки, берётся в кавычки,
+ * кавычки внутри удваиваются. Запись и разбор выполняются за один проход по символам без
+ * промежуточных массивов полей: числа и время разбираются прямо из исходной строки,
+ * новые строки создаются только для текстовых полей.
+ */
 public class CsvUtil {
     public static final String HEADER = "id,type,name,status,description,startTime,duration,epic";
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
 
     // Преобразовать задачу в CSV-строку
     public static String toCsv(Task task) {
-        String[] fields = new String[8];
-        fields[0] = String.valueOf(task.getId());
-        fields[1] = task.getType().toString();
-        fields[2] = task.getName();
-        fields[3] = task.getStatus().toString();
-        fields[4] = task.getDescription();
-        fields[5] = (task.getStartTime() != null ? task.getStartTime().format(DATE_TIME_FORMATTER) : "");
-        fields[6] = (task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "");
+        return appendCsv(new StringBuilder(64), task).toString();
+    }
 
+    // Дописать CSV-строку задачи (без перевода строки) в буфер; буфер можно переиспользовать между строками
+    public static StringBuilder appendCsv(StringBuilder out, Task task) {
+        out.append(task.getId()).append(',');
+        out.append(task.getType().name()).append(',');
+        appendText(out, task.getName());
+        out.append(',');
+        out.append(task.getStatus().name()).append(',');
+        appendText(out, task.getDescription());
+        out.append(',');
+        if (task.getStartTime() != null) {
+            appendDateTime(out, task.getStartTime());
+        }
+        out.append(',');
+        if (task.getDuration() != null) {
+            out.append(task.getDuration().toMinutes());
+        }
+        out.append(',');
         if (task.getType() == TaskType.SUBTASK) {
-            fields[7] = String.valueOf(((Subtask) task).getEpicId());
-        } else {
-            fields[7] = "";
+            out.append(((Subtask) task).getEpicId());
+        }
+        return out;
+    }
+
+    // Текстовое поле: в кавычках, только если иначе строку нельзя однозначно разобрать
+    private static void appendText(StringBuilder out, String value) {
+        if (value == null) {
+            out.append((String) null);
+            return;
         }
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
 
-        return String.join(",", fields);
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // yyyy-MM-dd HH:mm:ss без форматтера; годы вне 0..9999 — через форматтер
+    private static void appendDateTime(StringBuilder out, LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            out.append(time.format(DATE_TIME_FORMATTER));
+            return;
+        }
+        appendPadded(out, year, 4).append('-');
+        appendPadded(out, time.getMonthValue(), 2).append('-');
+        appendPadded(out, time.getDayOfMonth(), 2).append(' ');
+        appendPadded(out, time.getHour(), 2).append(':');
+        appendPadded(out, time.getMinute(), 2).append(':');
+        appendPadded(out, time.getSecond(), 2);
+    }
+
+    private static StringBuilder appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
     }
 
     // Восстановить тип задачи из строки
@@ -37,22 +109,16 @@ public class CsvUtil {
     }
 
     // Восстановить задачу из CSV-строки
-    public static Task fromCsvTask(String csv) {
-        String[] fields = csv.split(",", -1);
-        if (fields.length < 5) {
-            throw new IllegalArgumentException(
-                    "В строке CSV недостаточно полей для задачи: " + Arrays.toString(fields)
-            );
-        }
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = fields.length > 1 ? TaskType.valueOf(fields[1]) : TaskType.TASK;
-        String name = fields.length > 2 ? fields[2] : "";
-        TaskStatus status = fields.length > 3 ? TaskStatus.valueOf(fields[3]) : TaskStatus.NEW;
-        String description = fields.length > 4 ? fields[4] : "";
-        LocalDateTime startTime = fields.length > 5 && !fields[5].isEmpty()
-                ? LocalDateTime.parse(fields[5], DATE_TIME_FORMATTER)
-                : null;
-        Duration duration = fields.length > 6 && !fields[6].isEmpty() ? Duration.ofMinutes(Long.parseLong(fields[6])) : Duration.ZERO;
+    public static Task fromCsvTask(CharSequence csv) {
+        FieldReader reader = new FieldReader(csv);
+        reader.require(5, "задачи");
+        int id = reader.nextInt();
+        TaskType type = reader.next() ? reader.enumValue(TYPES) : TaskType.TASK;
+        String name = reader.next() ? reader.text() : "";
+        TaskStatus status = reader.next() ? reader.enumValue(STATUSES) : TaskStatus.NEW;
+        String description = reader.next() ? reader.text() : "";
+        LocalDateTime startTime = reader.next() && !reader.isEmpty() ? reader.dateTime() : null;
+        Duration duration = reader.next() && !reader.isEmpty() ? Duration.ofMinutes(reader.longValue()) : Duration.ZERO;
 
         switch (type) {
             case TASK:
@@ -62,45 +128,228 @@ public class CsvUtil {
                 epic.setStatus(status);
                 return epic;
             case SUBTASK:
-                int epicId = fields.length > 7 && !fields[7].isEmpty() ? Integer.parseInt(fields[7]) : 0;
+                int epicId = reader.next() && !reader.isEmpty() ? reader.intValue() : 0;
                 return new Subtask(id, name, description, status, duration, startTime, epicId);
             default:
                 throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
         }
     }
 
-    public static Epic fromCsvEpic(String csv) {
-        String[] fields = csv.split(",", -1);
-        if (fields.length < 5) {
-            throw new IllegalArgumentException(
-                    "В строке CSV недостаточно полей для эпика: " + Arrays.toString(fields)
-            );
-        }
-        int id = Integer.parseInt(fields[0]);
-        String name = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
+    public static Epic fromCsvEpic(CharSequence csv) {
+        FieldReader reader = new FieldReader(csv);
+        reader.require(5, "эпика");
+        int id = reader.nextInt();
+        reader.next();
+        reader.next();
+        String name = reader.text();
+        reader.next();
+        TaskStatus status = reader.enumValue(STATUSES);
+        reader.next();
+        String description = reader.text();
         Epic epic = new Epic(id, name, description);
         epic.setStatus(status);
         return epic;
     }
 
-    public static Subtask fromCsvSubtask(String csv) {
-        String[] fields = csv.split(",", -1);
-        if (fields.length < 8) {
-            throw new IllegalArgumentException(
-                    "В строке CSV недостаточно полей для подзадачи: " + Arrays.toString(fields)
-            );
-        }
-        int id = Integer.parseInt(fields[0]);
-        String name = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-        LocalDateTime startTime = fields[5].isEmpty()
-                ? null
-                : LocalDateTime.parse(fields[5], DATE_TIME_FORMATTER);
-        Duration duration = fields[6].isEmpty() ? Duration.ZERO : Duration.ofMinutes(Long.parseLong(fields[6]));
-        int epicId = Integer.parseInt(fields[7]);
+    public static Subtask fromCsvSubtask(CharSequence csv) {
+        FieldReader reader = new FieldReader(csv);
+        reader.require(8, "подзадачи");
+        int id = reader.nextInt();
+        reader.next();
+        reader.next();
+        String name = reader.text();
+        reader.next();
+        TaskStatus status = reader.enumValue(STATUSES);
+        reader.next();
+        String description = reader.text();
+        reader.next();
+        LocalDateTime startTime = reader.isEmpty() ? null : reader.dateTime();
+        reader.next();
+        Duration duration = reader.isEmpty() ? Duration.ZERO : Duration.ofMinutes(reader.longValue());
+        reader.next();
+        int epicId = reader.intValue();
         return new Subtask(id, name, description, status, duration, startTime, epicId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Курсор по полям одной CSV-записи. next() переходит к следующему полю и запоминает его границы;
+     * значения разбираются из исходной последовательности символов по требованию.
+     */
+    private static final class FieldReader {
+        private final CharSequence csv;
+        private final int length;
+        // Начало следующего поля; length + 1 — полей больше нет
+        private int position;
+        private int start;
+        private int end;
+        // Раскавыченное значение текущего поля, если оно было в кавычках
+        private String quoted;
+
+        FieldReader(CharSequence csv) {
+            this.csv = csv;
+            this.length = csv.length();
+        }
+
+        // Проверить, что в записи не меньше minFields полей, не трогая позицию курсора
+        void require(int minFields, String kind) {
+            int count = 1;
+            boolean inQuotes = false;
+            for (int i = 0; i < length && count < minFields; i++) {
+                char c = csv.charAt(i);
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == ',' && !inQuotes) {
+                    count++;
+                }
+            }
+            if (count < minFields) {
+                throw new IllegalArgumentException(
+                        "В строке CSV недостаточно полей для " + kind + ": " + csv);
+            }
+        }
+
+        boolean next() {
+            if (position > length) {
+                return false;
+            }
+            quoted = null;
+            if (position < length && csv.charAt(position) == '"') {
+                readQuoted();
+            } else {
+                start = position;
+                int i = position;
+                while (i < length && csv.charAt(i) != ',') {
+                    i++;
+                }
+                end = i;
+                position = i + 1;
+            }
+            return true;
+        }
+
+        private void readQuoted() {
+            StringBuilder value = new StringBuilder();
+            int i = position + 1;
+            while (true) {
+                if (i >= length) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в строке CSV: " + csv);
+                }
+                char c = csv.charAt(i++);
+                if (c == '"') {
+                    if (i < length && csv.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            if (i < length && csv.charAt(i) != ',') {
+                throw new IllegalArgumentException("Символы после закрывающей кавычки в строке CSV: " + csv);
+            }
+            quoted = value.toString();
+            start = 0;
+            end = quoted.length();
+            position = i + 1;
+        }
+
+        private CharSequence source() {
+            return quoted != null ? quoted : csv;
+        }
+
+        boolean isEmpty() {
+            return start == end;
+        }
+
+        String text() {
+            return quoted != null ? quoted : csv.subSequence(start, end).toString();
+        }
+
+        int nextInt() {
+            next();
+            return intValue();
+        }
+
+        int intValue() {
+            long value = longValue();
+            if (value != (int) value) {
+                throw new NumberFormatException("Число вне диапазона int: " + text());
+            }
+            return (int) value;
+        }
+
+        long longValue() {
+            CharSequence source = source();
+            int i = start;
+            boolean negative = i < end && source.charAt(i) == '-';
+            if (negative || (i < end && source.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == end || end - i > 18) {
+                // пусто или может переполнить long — пусть разберёт и объяснит Long.parseLong
+                return Long.parseLong(text());
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                char c = source.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Некорректное число: " + text());
+                }
+                value = value * 10 + (c - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        <E extends Enum<E>> E enumValue(E[] values) {
+            CharSequence source = source();
+            for (E value : values) {
+                String name = value.name();
+                if (name.length() == end - start && regionMatches(source, start, name)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестное значение " + values[0].getDeclaringClass().getSimpleName()
+                    + ": " + text());
+        }
+
+        // Время формата yyyy-MM-dd HH:mm:ss по фиксированным позициям,
+        // для остальных строк — форматтер (он же выдаёт понятную ошибку)
+        LocalDateTime dateTime() {
+            CharSequence s = source();
+            int o = start;
+            if (end - start == 19 && s.charAt(o + 4) == '-' && s.charAt(o + 7) == '-' && s.charAt(o + 10) == ' '
+                    && s.charAt(o + 13) == ':' && s.charAt(o + 16) == ':') {
+                try {
+                    return LocalDateTime.of(digits(s, o, 4), digits(s, o + 5, 2), digits(s, o + 8, 2),
+                            digits(s, o + 11, 2), digits(s, o + 14, 2), digits(s, o + 17, 2));
+                } catch (RuntimeException e) {
+                    // некорректные цифры или дата — разберём форматтером ниже
+                }
+            }
+            return LocalDateTime.parse(text(), DATE_TIME_FORMATTER);
+        }
+
+        private static int digits(CharSequence s, int from, int count) {
+            int result = 0;
+            for (int i = from; i < from + count; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException(s.toString());
+                }
+                result = result * 10 + (c - '0');
+            }
+            return result;
+        }
+
+        private static boolean regionMatches(CharSequence s, int from, String expected) {
+            for (int i = 0; i < expected.length(); i++) {
+                if (s.charAt(from + i) != expected.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package utils;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/**
+ * Карта id -> значение с обходом в порядке id.
+ * <p>
+ * Поиск по id идёт через IntObjectHashMap, порядок хранит SortedIntSet (около 4 байт на id).
+ * Поэтому страница из limit значений после курсора стоит O(log n + limit), сколько бы id других
+ * типов ни было вперемешку с этими, а values() обходит значения по возрастанию id.
+ * Null как значение не поддерживается. Не потокобезопасна; итераторы бросают
+ * ConcurrentModificationException при изменении карты во время обхода.
+ */
+public final class IdOrderedMap<V> {
+    private final IntObjectHashMap<V> byId = new IntObjectHashMap<>();
+    private final SortedIntSet ids = new SortedIntSet();
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    public V get(int id) {
+        return byId.get(id);
+    }
+
+    public boolean containsKey(int id) {
+        return byId.containsKey(id);
+    }
+
+    // Положить значение; вернуть прежнее значение по этому id или null
+    public V put(int id, V value) {
+        V previous = byId.put(id, value);
+        if (previous == null) {
+            ids.add(id);
+        }
+        return previous;
+    }
+
+    // Удалить значение; вернуть удалённое значение или null, если id не было
+    public V remove(int id) {
+        V removed = byId.remove(id);
+        if (removed != null) {
+            ids.remove(id);
+        }
+        return removed;
+    }
+
+    public void clear() {
+        byId.clear();
+        ids.clear();
+    }
+
+    // Живое представление значений в порядке id
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(ids.iterator());
+            }
+
+            @Override
+            public int size() {
+                return byId.size();
+            }
+        };
+    }
+
+    // Значения с id больше afterId в порядке id
+    public Iterator<V> valuesAfter(int afterId) {
+        return new ValueIterator(ids.iteratorAfter(afterId));
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final PrimitiveIterator.OfInt idIterator;
+
+        private ValueIterator(PrimitiveIterator.OfInt idIterator) {
+            this.idIterator = idIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return idIterator.hasNext();
+        }
+
+        @Override
+        public V next() {
+            return byId.get(idIterator.nextInt());
+        }
+    }
+}
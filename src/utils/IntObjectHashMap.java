@@ -0,0 +1,225 @@
+package utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Хеш-таблица с ключами int и открытой адресацией (линейное пробирование).
+ * <p>
+ * Ключи и значения лежат в двух параллельных массивах: нет упаковки ключа в Integer и нет
+ * объекта-узла на каждую запись, поиск — проход по соседним ячейкам массива. Пустая ячейка
+ * отмечается null в массиве значений, поэтому null как значение не поддерживается.
+ * Удаление сдвигает следующие записи цепочки назад, без «надгробий», так что цепочки не
+ * деградируют при частых удалениях.
+ * <p>
+ * Ячейка ключа — старшие биты произведения на 0x9E3779B9 (фибоначчиево хеширование), как в
+ * RingBufferHistoryManager: подряд идущие id разбрасываются по всей таблице и не складываются
+ * в один длинный кластер, который пришлось бы проходить при вставке или поиске отсутствующего id.
+ * Порядок обхода values() не определён. Не потокобезопасна; итератор values() не поддерживает
+ * remove и бросает ConcurrentModificationException при изменении таблицы во время обхода.
+ */
+public final class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    // 32 - log2(ёмкости): сколько младших бит произведения отбрасывает slot
+    private int shift;
+    private int resizeAt;
+    private int modCount;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? null : value(i);
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    // Положить значение; вернуть прежнее значение по этому ключу или null
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V previous = value(i);
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    // Удалить значение; вернуть удалённое значение или null, если ключа не было
+    public V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V removed = value(i);
+        shiftBack(i);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    // Живое представление значений, как HashMap.values()
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(int key) {
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int i) {
+        return (V) values[i];
+    }
+
+    // Освободить ячейку hole, перенося в неё записи цепочки, которые иначе стали бы недостижимы
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            int home = slot(keys[i]);
+            // Запись можно перенести, если её «родная» ячейка не лежит циклически в (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        // Заполнение не больше 3/4, как у HashMap
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    // Наименьшая степень двойки, при которой expectedSize записей не вызовут расширения
+    private static int tableSizeFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) Math.ceil(Math.max(expectedSize, 0) / 0.75) + 1);
+        if (needed > 1 << 30) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            int i = from;
+            while (i < values.length && values[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            V value = value(next);
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
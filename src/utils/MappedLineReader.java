@@ -0,0 +1,84 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Чтение CSV-записей файла через FileChannel.map.
+ * <p>
+ * Файл отображается в память окнами по CHUNK_SIZE байт, записи по одной декодируются из UTF-8
+ * и сразу отдаются обработчику. Запись заканчивается переводом строки вне кавычек: поле
+ * в кавычках может содержать перевод строки (RFC 4180). Одновременно в куче находится только
+ * текущая запись, поэтому дополнительная память не зависит от размера файла
+ * (в отличие от Files.readAllLines).
+ */
+public final class MappedLineReader {
+    // Размер окна отображения; запись может переходить через границу окна
+    private static final long CHUNK_SIZE = 64L << 20;
+
+    private MappedLineReader() {
+    }
+
+    // Передать обработчику каждую запись файла без символов конца строки (\n или \r\n)
+    public static void forEachRecord(Path path, Consumer<String> action) throws IOException {
+        read(path, action, true);
+    }
+
+    /**
+     * Передать обработчику только записи, завершённые переводом строки; недописанный хвост файла
+     * пропускается.
+     *
+     * @return смещение в байтах сразу после последней завершённой записи
+     */
+    public static long forEachCompleteRecord(Path path, Consumer<String> action) throws IOException {
+        return read(path, action, false);
+    }
+
+    private static long read(Path path, Consumer<String> action, boolean includeTail) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long end = 0;
+            byte[] line = new byte[256];
+            int length = 0;
+            boolean inQuotes = false;
+            for (long position = 0; position < size; position += CHUNK_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHUNK_SIZE, size - position));
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                    }
+                    if (b == '\n' && !inQuotes) {
+                        action.accept(decode(line, length));
+                        length = 0;
+                        end = position + buffer.position();
+                    } else {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = b;
+                    }
+                }
+            }
+            if (includeTail && length > 0) {
+                action.accept(decode(line, length));
+                end = size;
+            }
+            return end;
+        }
+    }
+
+    private static String decode(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
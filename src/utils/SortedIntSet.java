@@ -0,0 +1,206 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Отсортированное множество int в блоках примитивных массивов.
+ * <p>
+ * Значения лежат по возрастанию блоками до BLOCK_SIZE штук, как в PackedIntervalIndex: поиск —
+ * двоичный по блокам и внутри блока, вставка и удаление сдвигают не больше одного блока. Значение
+ * больше всех (id выдаются по возрастанию) дописывается в конец, а полный последний блок в этом случае
+ * не делится пополам, а начинает новый — последовательные id заполняют блоки целиком.
+ * Обход с любого значения — O(log n) на поиск начала и O(1) на шаг. Не потокобезопасно;
+ * итераторы бросают ConcurrentModificationException при изменении множества во время обхода.
+ */
+public final class SortedIntSet {
+    private static final int BLOCK_SIZE = 1024;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+    private int modCount;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Добавить значение; false, если оно уже есть
+    public boolean add(int value) {
+        // Пустых блоков не бывает: пустое множество получает первый блок, значение больше всех — идёт в последний
+        int b = blockFor(value);
+        if (blocks.isEmpty()) {
+            blocks.add(new Block());
+        } else if (b == blocks.size()) {
+            b--;
+        }
+        Block block = blocks.get(b);
+        int i = block.ceiling(value);
+        if (i < block.size && block.values[i] == value) {
+            return false;
+        }
+        if (block.size == BLOCK_SIZE) {
+            if (b == blocks.size() - 1 && i == block.size) {
+                block = new Block();
+                blocks.add(block);
+                i = 0;
+            } else {
+                Block upper = block.splitUpperHalf();
+                blocks.add(b + 1, upper);
+                if (i > block.size) {
+                    i -= block.size;
+                    block = upper;
+                }
+            }
+        }
+        block.insert(i, value);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    // Удалить значение; false, если его не было
+    public boolean remove(int value) {
+        int b = blockFor(value);
+        if (b == blocks.size()) {
+            return false;
+        }
+        Block block = blocks.get(b);
+        int i = block.ceiling(value);
+        if (i == block.size || block.values[i] != value) {
+            return false;
+        }
+        block.delete(i);
+        if (block.size == 0) {
+            blocks.remove(b);
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        int b = blockFor(value);
+        if (b == blocks.size()) {
+            return false;
+        }
+        Block block = blocks.get(b);
+        int i = block.ceiling(value);
+        return i < block.size && block.values[i] == value;
+    }
+
+    public void clear() {
+        blocks.clear();
+        size = 0;
+        modCount++;
+    }
+
+    // Значения по возрастанию
+    public PrimitiveIterator.OfInt iterator() {
+        return new ValueIterator(0, 0);
+    }
+
+    // Значения больше after по возрастанию
+    public PrimitiveIterator.OfInt iteratorAfter(int after) {
+        if (after == Integer.MAX_VALUE) {
+            return new ValueIterator(blocks.size(), 0);
+        }
+        int b = blockFor(after + 1);
+        return new ValueIterator(b, b < blocks.size() ? blocks.get(b).ceiling(after + 1) : 0);
+    }
+
+    // Первый блок, последнее значение которого не меньше value, или blocks.size()
+    private int blockFor(int value) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Block block = blocks.get(mid);
+            if (block.values[block.size - 1] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private final class ValueIterator implements PrimitiveIterator.OfInt {
+        private final int expectedModCount = modCount;
+        private int block;
+        private int offset;
+
+        private ValueIterator(int block, int offset) {
+            this.block = block;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return block < blocks.size() && offset < blocks.get(block).size;
+        }
+
+        @Override
+        public int nextInt() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Block current = blocks.get(block);
+            int value = current.values[offset];
+            if (++offset == current.size) {
+                block++;
+                offset = 0;
+            }
+            return value;
+        }
+    }
+
+    private static final class Block {
+        final int[] values = new int[BLOCK_SIZE];
+        int size;
+
+        // Первая позиция со значением не меньше value
+        int ceiling(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void insert(int i, int value) {
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = value;
+            size++;
+        }
+
+        void delete(int i) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+
+        Block splitUpperHalf() {
+            Block upper = new Block();
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(values, half, upper.values, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package utils;
+
+import com.google.gson.*;
+import tasks.Subtask;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Сериализует подзадачи эпика (карта по id) как JSON-массив, сохраняя прежний формат
+public class SubtaskMapAdapter implements JsonSerializer<Map<Integer, Subtask>>, JsonDeserializer<Map<Integer, Subtask>> {
+
+    @Override
+    public JsonElement serialize(Map<Integer, Subtask> src, Type typeOfSrc, JsonSerializationContext context) {
+        JsonArray array = new JsonArray();
+        for (Subtask subtask : src.values()) {
+            array.add(context.serialize(subtask, Subtask.class));
+        }
+        return array;
+    }
+
+    @Override
+    public Map<Integer, Subtask> deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        Map<Integer, Subtask> subtasks = new LinkedHashMap<>();
+        for (JsonElement element : json.getAsJsonArray()) {
+            Subtask subtask = context.deserialize(element, Subtask.class);
+            subtasks.put(subtask.getId(), subtask);
+        }
+        return subtasks;
+    }
+}
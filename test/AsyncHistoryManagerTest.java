@@ -0,0 +1,128 @@
+package test;
+
+import managers.AsyncHistoryManager;
+import managers.ConcurrentTaskManager;
+import managers.PerClientHistoryManager;
+import managers.RingBufferHistoryManager;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncHistoryManagerTest {
+
+    private static Task task(int id) {
+        return new Task(id, "T" + id, "D", TaskStatus.NEW, Duration.ofMinutes(5), null);
+    }
+
+    private static String ids(List<Task> history) {
+        StringBuilder sb = new StringBuilder();
+        for (Task task : history) {
+            sb.append(task.getId()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    // Просмотры и удаления применяются в порядке вызовов, getHistory видит всё, что было до него
+    @Test
+    void shouldApplyEventsInOrderBeforeHistoryIsRead() {
+        AsyncHistoryManager history = new AsyncHistoryManager(new RingBufferHistoryManager(3));
+        history.add(task(1));
+        history.add(task(2));
+        history.remove(1);
+        history.add(task(3));
+        history.add(task(2));
+        assertEquals(5, history.getPendingCount());
+
+        assertEquals("3 2", ids(history.getHistory()));
+        assertEquals(0, history.getPendingCount());
+    }
+
+    // При пороге очередь сбрасывает сам производитель, и она не растёт без вызова getHistory
+    @Test
+    void shouldDrainWhenThresholdReached() {
+        AsyncHistoryManager history = new AsyncHistoryManager(new RingBufferHistoryManager(10), 4);
+        for (int i = 1; i <= 9; i++) {
+            history.add(task(i));
+        }
+        assertEquals(1, history.getPendingCount());
+        assertEquals("1 2 3 4 5 6 7 8 9", ids(history.getHistory()));
+    }
+
+    // Просмотр попадает в историю того клиента, от которого пришёл, кто бы ни сбросил очередь
+    @Test
+    void shouldKeepClientOfEachView() {
+        AsyncHistoryManager history = new AsyncHistoryManager(new PerClientHistoryManager(10, 10));
+        try {
+            PerClientHistoryManager.setCurrentClient("alice");
+            history.add(task(1));
+            PerClientHistoryManager.setCurrentClient("bob");
+            history.add(task(2));
+
+            assertEquals("2", ids(history.getHistory()));
+            PerClientHistoryManager.setCurrentClient("alice");
+            assertEquals("1", ids(history.getHistory()));
+        } finally {
+            PerClientHistoryManager.clearCurrentClient();
+        }
+    }
+
+    // Параллельные просмотры не теряются, а просмотры одного потока идут в порядке вызовов
+    @Test
+    void shouldKeepPerThreadOrderUnderConcurrentViews() throws Exception {
+        int threads = 4;
+        int perThread = 5_000;
+        AsyncHistoryManager history = new AsyncHistoryManager(
+                new RingBufferHistoryManager(threads * perThread), 64);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    history.add(task(base + i));
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Task> viewed = history.getHistory();
+        assertEquals(threads * perThread, viewed.size());
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (Task task : viewed) {
+            int t = task.getId() / perThread;
+            assertTrue(task.getId() > last[t], "Нарушен порядок просмотров потока " + t);
+            last[t] = task.getId();
+        }
+    }
+
+    // ConcurrentTaskManager не оборачивает асинхронную историю, удаление задачи убирает её из истории
+    @Test
+    void shouldWorkWithConcurrentTaskManager() {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(
+                new AsyncHistoryManager(new RingBufferHistoryManager()));
+        int first = manager.addNewTask(new Task("A", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        int second = manager.addNewTask(new Task("B", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        manager.getTask(first);
+        manager.getTask(second);
+        manager.removeTask(first);
+
+        assertEquals(String.valueOf(second), ids(manager.getHistory()));
+    }
+}
@@ -0,0 +1,95 @@
+package test;
+
+import com.google.gson.Gson;
+import managers.ConcurrentTaskManager;
+import managers.Managers;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Параллельные добавления не теряют задач и получают уникальные id
+    @Test
+    void shouldAssignUniqueIdsUnderConcurrentAdds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime start = base.plusMinutes(10L * i);
+            futures.add(executor.submit(() -> {
+                int id = manager.addNewTask(new Task("T", "D", TaskStatus.NEW, Duration.ofMinutes(10), start));
+                manager.getTask(id);
+                return id;
+            }));
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Future<Integer> future : futures) {
+            ids.add(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(400, ids.size());
+        assertEquals(400, manager.getTasks().size());
+        assertEquals(400, manager.getPrioritizedTasks().size());
+    }
+
+    // Эпики сериализуются вне блокировки, пока другой поток меняет их подзадачи
+    @Test
+    void shouldSerializeEpicsWhileSubtasksChange() throws Exception {
+        int epicId = manager.addNewEpic(new Epic("E", "D"));
+        Gson gson = Managers.getGson();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+            ArrayDeque<Integer> ids = new ArrayDeque<>();
+            for (int i = 0; running.get(); i++) {
+                ids.add(manager.addNewSubtask(new Subtask("S", "D", TaskStatus.DONE, Duration.ofMinutes(1),
+                        base.plusMinutes(2L * i), epicId)));
+                if (ids.size() > 50) {
+                    manager.removeSubtask(ids.poll());
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                gson.toJson(manager.getEpics());
+                gson.toJson(manager.getEpic(epicId));
+                gson.toJson(manager.getHistory());
+            }
+        } finally {
+            running.set(false);
+            writer.get();
+            executor.shutdown();
+        }
+        Epic epic = manager.getEpic(epicId);
+        int size = epic.getSubtasks().size();
+        manager.addNewSubtask(new Subtask("S", "D", TaskStatus.NEW, Duration.ofMinutes(1), null, epicId));
+        assertEquals(size, epic.getSubtasks().size(), "Выданный эпик не меняется после записи");
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+    }
+}
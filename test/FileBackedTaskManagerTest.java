@@ -1,14 +1,35 @@
 import managers.FileBackedTaskManager;
+import managers.GroupCommitWriter;
+import managers.HistoryLog;
+import managers.ManagerSaveException;
+import managers.RingBufferHistoryManager;
+import managers.SnapshotConverter;
 import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
 import tasks.Task;
 import tasks.TaskStatus;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 // Тесты для файлового менеджера задач
 public class FileBackedTaskManagerTest extends test.TaskManagerTest<FileBackedTaskManager> {
@@ -40,4 +61,387 @@ public class FileBackedTaskManagerTest extends test.TaskManagerTest<FileBackedTa
 
         file.delete();
     }
+
+    // Тест восстановления из журнала изменений, в том числе после checkpoint
+    @Test
+    public void shouldReplayWriteAheadLogOnLoad() {
+        File file = new File("test-wal.csv");
+        File logFile = new File("test-wal.csv.log");
+        file.delete();
+        logFile.delete();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        int taskId = manager.addNewTask(new Task("Test", "Desc", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2024, 6, 3, 12, 0)));
+        int removedId = manager.addNewTask(new Task("Removed", "Desc", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2024, 6, 3, 13, 0)));
+        manager.checkpoint();
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        int subId = manager.addNewSubtask(new Subtask("Sub", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), LocalDateTime.of(2024, 6, 3, 14, 0), epicId));
+        manager.updateSubtask(new Subtask(subId, "Sub", "Desc", TaskStatus.DONE, Duration.ofMinutes(5), LocalDateTime.of(2024, 6, 3, 14, 0), epicId));
+        manager.removeTask(removedId);
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        loadedManager.loadFromFile();
+
+        assertNotNull(loadedManager.getTask(taskId));
+        assertNull(loadedManager.getTask(removedId));
+        assertEquals(TaskStatus.DONE, loadedManager.getEpic(epicId).getStatus());
+        assertEquals(1, loadedManager.getEpicSubtasks(epicId).size());
+        assertTrue(loadedManager.addNewTask(new Task("New", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null)) > subId);
+
+        manager.close();
+        loadedManager.close();
+        file.delete();
+        logFile.delete();
+    }
+
+    // Тест: недописанная последняя запись журнала не применяется и не склеивается со следующей
+    @Test
+    public void shouldDropTornLogTailBeforeAppending() throws Exception {
+        File file = new File("test-torn.csv");
+        File logFile = new File("test-torn.csv.log");
+        file.delete();
+        logFile.delete();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        int firstId = manager.addNewTask(new Task("A", "Desc", TaskStatus.NEW, Duration.ofMinutes(10), null));
+        int tornId = manager.addNewTask(new Task("Torn", "Desc", TaskStatus.NEW, Duration.ofMinutes(30), null));
+        manager.close();
+        // Сбой посреди записи: нет перевода строки и последней цифры длительности, кавычка не закрыта
+        byte[] log = Files.readAllBytes(logFile.toPath());
+        byte[] torn = new byte[log.length - 2];
+        System.arraycopy(log, 0, torn, 0, torn.length);
+        Files.write(logFile.toPath(), torn);
+        Files.write(logFile.toPath(), "PUT,\"".getBytes(), StandardOpenOption.APPEND);
+
+        FileBackedTaskManager reloaded = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        reloaded.loadFromFile();
+        assertNotNull(reloaded.getTask(firstId));
+        assertNull(reloaded.getTask(tornId), "Неподтверждённая запись не применяется");
+        int nextId = reloaded.addNewTask(new Task("B", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        reloaded.close();
+
+        FileBackedTaskManager again = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        again.loadFromFile();
+        assertEquals(Duration.ofMinutes(10), again.getTask(firstId).getDuration());
+        assertEquals("B", again.getTask(nextId).getName(), "Подтверждённая после сбоя запись не теряется");
+        assertEquals(2, again.getTasks().size());
+        again.close();
+
+        file.delete();
+        logFile.delete();
+    }
+
+    // Тест групповой записи: параллельные добавления подтверждаются и все видны после загрузки
+    @Test
+    public void shouldGroupCommitConcurrentWrites() throws Exception {
+        for (GroupCommitWriter.Durability durability : GroupCommitWriter.Durability.values()) {
+            File file = new File("test-group.csv");
+            File logFile = new File("test-group.csv.log");
+            file.delete();
+            logFile.delete();
+
+            FileBackedTaskManager manager = new FileBackedTaskManager(file,
+                    FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG, durability, 5);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String name = "Task " + i;
+                ids.add(executor.submit(() -> manager.addNewTask(new Task(name, "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null))));
+            }
+            for (Future<Integer> id : ids) {
+                id.get();
+            }
+            executor.shutdown();
+            manager.close();
+
+            FileBackedTaskManager loadedManager = new FileBackedTaskManager(file,
+                    FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG, durability, 5);
+            loadedManager.loadFromFile();
+            assertEquals(200, loadedManager.getTasks().size(), durability.toString());
+            loadedManager.close();
+
+            file.delete();
+            logFile.delete();
+        }
+    }
+
+    // Тест компакции: снимок пишется параллельно с изменениями, журнал после неё короткий
+    @Test
+    public void shouldCompactLogWhileWritesContinue() throws Exception {
+        File file = new File("test-compact.csv");
+        File logFile = new File("test-compact.csv.log");
+        File sealedFile = new File("test-compact.csv.log.1");
+        file.delete();
+        logFile.delete();
+        sealedFile.delete();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file,
+                FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG, GroupCommitWriter.Durability.OS_BUFFERED, 5);
+        int updatedId = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        for (int i = 0; i < 500; i++) {
+            manager.updateTask(new Task(updatedId, "Task " + i, "Desc", TaskStatus.IN_PROGRESS, Duration.ofMinutes(5), null));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(executor.submit(() -> manager.addNewTask(new Task("New", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null))));
+        }
+        manager.compact();
+        for (Future<Integer> id : ids) {
+            id.get();
+        }
+        executor.shutdown();
+        manager.compact();
+        long logSizeAfterCompaction = manager.getLogSize();
+        manager.close();
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        loadedManager.loadFromFile();
+        assertEquals(0, logSizeAfterCompaction);
+        assertEquals(201, loadedManager.getTasks().size());
+        assertEquals("Task 499", loadedManager.getTask(updatedId).getName());
+        loadedManager.close();
+
+        file.delete();
+        logFile.delete();
+        sealedFile.delete();
+    }
+
+    // Тест загрузки: пересечение в файле находится проверкой всего расписания после разбора
+    @Test
+    public void shouldRejectOverlappingScheduleOnLoad() throws Exception {
+        File file = new File("test-overlap.csv");
+        Files.writeString(file.toPath(), "id,type,name,status,description,startTime,duration,epic\r\n"
+                + "1,TASK,A,NEW,Desc,2024-06-03 12:00:00,60,\r\n"
+                + "2,EPIC,E,NEW,Desc,,,\r\n"
+                + "3,SUBTASK,S,DONE,Desc,2024-06-03 13:00:00,30,2\r\n");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.loadFromFile();
+        assertEquals(LocalDateTime.of(2024, 6, 3, 13, 0), manager.getSubtask(3).getStartTime());
+        assertEquals(TaskStatus.DONE, manager.getEpic(2).getStatus());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+
+        Files.writeString(file.toPath(), "id,type,name,status,description,startTime,duration,epic\n"
+                + "1,TASK,A,NEW,Desc,2024-06-03 12:00:00,60,\n"
+                + "2,TASK,B,NEW,Desc,2024-06-03 12:30:00,60,\n");
+        FileBackedTaskManager overlapping = new FileBackedTaskManager(file);
+        assertThrows(IllegalArgumentException.class, overlapping::loadFromFile);
+
+        file.delete();
+    }
+
+    // Тест: текст с запятыми и переводами строк сохраняется и в снимке, и в журнале
+    @Test
+    public void shouldPersistQuotedTextInSnapshotAndLog() {
+        File file = new File("test-quoted.csv");
+        File logFile = new File("test-quoted.csv.log");
+        file.delete();
+        logFile.delete();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        int snapshotId = manager.addNewTask(new Task("Имя, с запятой", "Две\nстроки", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        manager.checkpoint();
+        int logId = manager.addNewTask(new Task("\"Кавычки\"", "a,\r\nb", TaskStatus.DONE, Duration.ofMinutes(5), null));
+        manager.close();
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.WRITE_AHEAD_LOG);
+        loadedManager.loadFromFile();
+        assertEquals("Имя, с запятой", loadedManager.getTask(snapshotId).getName());
+        assertEquals("Две\nстроки", loadedManager.getTask(snapshotId).getDescription());
+        assertEquals("\"Кавычки\"", loadedManager.getTask(logId).getName());
+        assertEquals("a,\r\nb", loadedManager.getTask(logId).getDescription());
+        loadedManager.close();
+
+        file.delete();
+        logFile.delete();
+    }
+
+    // Тест двоичного снимка: сохранение, загрузка и перевод в CSV и обратно
+    @Test
+    public void shouldSaveBinarySnapshotAndConvertToCsv() {
+        File file = new File("test-binary.bin");
+        File csvFile = new File("test-binary.csv");
+        File copyFile = new File("test-binary-copy.bin");
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, FileBackedTaskManager.PersistenceMode.SNAPSHOT,
+                FileBackedTaskManager.SnapshotFormat.BINARY_DEFLATE);
+        int taskId = manager.addNewTask(new Task("Задача, \"с кавычками\"", null, TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(90), LocalDateTime.of(2024, 6, 3, 12, 0, 30)));
+        int epicId = manager.addNewEpic(new Epic("Эпик", "Описание"));
+        int subId = manager.addNewSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE,
+                Duration.ofMinutes(15), LocalDateTime.of(1969, 12, 31, 23, 0), epicId));
+
+        assertEquals(3, SnapshotConverter.convert(file.toPath(), csvFile.toPath(), FileBackedTaskManager.SnapshotFormat.CSV));
+        SnapshotConverter.convert(csvFile.toPath(), copyFile.toPath(), FileBackedTaskManager.SnapshotFormat.BINARY);
+
+        for (File source : new File[]{file, csvFile, copyFile}) {
+            FileBackedTaskManager loadedManager = new FileBackedTaskManager(source);
+            loadedManager.loadFromFile();
+            Task task = loadedManager.getTask(taskId);
+            assertEquals("Задача, \"с кавычками\"", task.getName());
+            assertEquals(TaskStatus.IN_PROGRESS, task.getStatus());
+            assertEquals(LocalDateTime.of(2024, 6, 3, 12, 0, 30), task.getStartTime());
+            assertEquals(Duration.ofMinutes(90), task.getDuration());
+            assertEquals(LocalDateTime.of(1969, 12, 31, 23, 0), loadedManager.getSubtask(subId).getStartTime());
+            assertEquals(TaskStatus.DONE, loadedManager.getEpic(epicId).getStatus());
+        }
+        assertNull(new FileBackedTaskManager(copyFile).getTask(taskId));
+
+        file.delete();
+        csvFile.delete();
+        copyFile.delete();
+    }
+
+    // Тест асинхронного режима: серия изменений записывается одним снимком по flush() или по размеру серии
+    @Test
+    public void shouldCoalesceAsyncSavesUntilFlush() throws Exception {
+        File file = new File("test-async.csv");
+        File historyFile = new File("test-async.csv.history");
+        file.delete();
+        historyFile.delete();
+
+        // Задержка в час: сам по таймеру снимок за время теста не запишется, записи видны только через flush
+        // или по размеру серии; каждое завершение фоновой записи попадает в очередь
+        BlockingQueue<Integer> saves = new LinkedBlockingQueue<>();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, FileBackedTaskManager.SnapshotFormat.CSV,
+                TimeUnit.HOURS.toMillis(1), 1_000) {
+            @Override
+            protected void snapshotSaved(int changes) {
+                saves.add(changes);
+            }
+        };
+        int taskId = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(new Task(taskId, "Task " + i, "Desc", TaskStatus.IN_PROGRESS, Duration.ofMinutes(5), null));
+        }
+        assertFalse(file.exists(), "До flush() и до конца задержки снимок не пишется");
+        assertTrue(saves.isEmpty());
+
+        manager.flush();
+        assertEquals(Integer.valueOf(101), saves.poll(), "Все изменения до flush() записаны одним снимком");
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(file);
+        loadedManager.loadFromFile();
+        assertEquals("Task 99", loadedManager.getTask(taskId).getName());
+        loadedManager.close();
+
+        for (int i = 0; i < 999; i++) {
+            manager.addNewTask(new Task("Batch", "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        }
+        manager.removeTask(taskId);
+        assertEquals(Integer.valueOf(1_000), saves.poll(1, TimeUnit.MINUTES),
+                "Серия из saveBatchSize изменений пишется без ожидания задержки");
+        FileBackedTaskManager probe = new FileBackedTaskManager(file);
+        probe.loadFromFile();
+        assertEquals(999, probe.getTasks().size());
+        probe.close();
+        manager.close();
+        assertTrue(saves.isEmpty(), "close() без новых изменений снимок не переписывает");
+
+        file.delete();
+        historyFile.delete();
+    }
+
+    // История просмотров переживает перезапуск, включая вытеснение и удаление просмотренных задач
+    @Test
+    public void shouldRestoreHistoryAfterRestart() {
+        File file = new File("test-history.csv");
+        File historyFile = new File("test-history.csv.history");
+        file.delete();
+        historyFile.delete();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(manager.addNewTask(new Task("Task " + i, "Desc", TaskStatus.NEW, Duration.ofMinutes(5), null)));
+        }
+        for (int id : ids) {
+            manager.getTask(id);
+        }
+        manager.removeTask(ids.get(11));
+        manager.getTask(ids.get(2));
+        List<Integer> expected = historyIds(manager.getHistory());
+        manager.close();
+
+        FileBackedTaskManager loadedManager = new FileBackedTaskManager(file);
+        loadedManager.loadFromFile();
+        assertEquals(expected, historyIds(loadedManager.getHistory()));
+        assertEquals("Task 2", loadedManager.getHistory().get(expected.size() - 1).getName());
+        loadedManager.close();
+
+        file.delete();
+        historyFile.delete();
+    }
+
+    // Файл истории сжимается до текущей истории и не растёт с числом просмотров
+    @Test
+    public void shouldCompactHistoryLog() throws Exception {
+        File historyFile = new File("test-compact.history");
+        historyFile.delete();
+        HistoryLog history = new HistoryLog(new RingBufferHistoryManager(3), historyFile, 5, 60_000);
+        for (int i = 1; i <= 7; i++) {
+            history.add(new Task(i, "Task " + i, "Desc", TaskStatus.NEW, null, null));
+        }
+        history.close();
+        assertTrue(Files.readAllLines(historyFile.toPath()).size() <= 3 + 5);
+
+        HistoryLog loaded = new HistoryLog(new RingBufferHistoryManager(3), historyFile, 5, 60_000);
+        loaded.load(id -> new Task(id, "Task " + id, "Desc", TaskStatus.NEW, null, null));
+        assertEquals(List.of(5, 6, 7), historyIds(loaded.getHistory()));
+        assertEquals(List.of("5", "6", "7"), Files.readAllLines(historyFile.toPath()));
+        loaded.close();
+
+        historyFile.delete();
+    }
+
+    // Просмотр не пишет в файл сам: события попадают туда при flush, а после close не сохраняются
+    @Test
+    public void shouldKeepHistoryWritesOffReadPath() throws Exception {
+        File historyFile = new File("test-offread.history");
+        historyFile.delete();
+        HistoryLog history = new HistoryLog(new RingBufferHistoryManager(3), historyFile, 100, 60_000);
+        history.add(new Task(1, "Task 1", "Desc", TaskStatus.NEW, null, null));
+        history.add(new Task(2, "Task 2", "Desc", TaskStatus.NEW, null, null));
+        history.remove(1);
+        assertFalse(historyFile.exists(), "До flush() и до конца задержки файл не пишется");
+
+        history.flush();
+        assertEquals(List.of("1", "2", "-1"), Files.readAllLines(historyFile.toPath()));
+
+        history.close();
+        history.add(new Task(3, "Task 3", "Desc", TaskStatus.NEW, null, null));
+        history.flush();
+        assertEquals(List.of("1", "2", "-1"), Files.readAllLines(historyFile.toPath()));
+        assertEquals(List.of(2, 3), historyIds(history.getHistory()));
+
+        historyFile.delete();
+    }
+
+    // Ошибка записи истории не доходит до просмотра; следующая удачная запись переписывает файл целиком
+    @Test
+    public void shouldNotFailViewWhenHistoryWriteFails() throws Exception {
+        File directory = new File("test-history-dir");
+        File historyFile = new File(directory, "tasks.history");
+        historyFile.delete();
+        directory.delete();
+        HistoryLog history = new HistoryLog(new RingBufferHistoryManager(3), historyFile, 100, 60_000);
+        history.add(new Task(1, "Task 1", "Desc", TaskStatus.NEW, null, null));
+        assertThrows(ManagerSaveException.class, history::flush);
+
+        history.add(new Task(2, "Task 2", "Desc", TaskStatus.NEW, null, null));
+        assertTrue(directory.mkdir());
+        history.flush();
+        assertEquals(List.of("1", "2"), Files.readAllLines(historyFile.toPath()));
+        history.close();
+
+        historyFile.delete();
+        directory.delete();
+    }
+
+    private static List<Integer> historyIds(List<Task> history) {
+        List<Integer> result = new ArrayList<>();
+        for (Task task : history) {
+            result.add(task.getId());
+        }
+        return result;
+    }
 }
@@ -0,0 +1,158 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import utils.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectHashMapTest {
+
+    // Ключи, чья «родная» ячейка в таблице ёмкостью 16 равна slot (та же формула, что в IntObjectHashMap);
+    // таблицу ёмкостью 16 даёт new IntObjectHashMap<>(8)
+    private static List<Integer> keysWithHome(int slot, int count) {
+        List<Integer> result = new ArrayList<>();
+        for (int key = 1; result.size() < count; key++) {
+            if ((key * 0x9E3779B9) >>> 28 == slot) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    // Удаление из цепочки, перешедшей через конец таблицы, сдвигает записи назад и не теряет их
+    @Test
+    void shouldShiftBackAcrossWrappedChain() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(8);
+        List<Integer> last = keysWithHome(15, 3);
+        int first = keysWithHome(0, 1).get(0);
+        for (int key : last) {
+            map.put(key, "v" + key);
+        }
+        map.put(first, "v" + first);
+
+        assertEquals("v" + last.get(0), map.remove(last.get(0)));
+        assertNull(map.get(last.get(0)));
+        for (int key : last.subList(1, 3)) {
+            assertEquals("v" + key, map.get(key));
+        }
+        assertEquals("v" + first, map.get(first));
+        assertEquals(3, map.size());
+
+        assertEquals("v" + first, map.remove(first));
+        assertEquals("v" + last.get(2), map.remove(last.get(2)));
+        assertEquals("v" + last.get(1), map.get(last.get(1)));
+        assertEquals(1, map.size());
+    }
+
+    // Таблица расширяется и после этого находит все ключи
+    @Test
+    void shouldKeepAllEntriesAfterRehash() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int key = -500; key < 1500; key++) {
+            map.put(key, key * 2);
+        }
+        assertEquals(2000, map.size());
+        for (int key = -500; key < 1500; key++) {
+            assertEquals(Integer.valueOf(key * 2), map.get(key));
+        }
+        assertFalse(map.containsKey(1500));
+        int count = 0;
+        for (Integer ignored : map.values()) {
+            count++;
+        }
+        assertEquals(2000, count);
+    }
+
+    // Повторный put заменяет значение и возвращает прежнее, не меняя размер
+    @Test
+    void shouldOverwriteOnPut() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(8, null));
+    }
+
+    // После clear таблица пуста и снова пригодна к работе
+    @Test
+    void shouldClear() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        for (int key = 0; key < 100; key++) {
+            map.put(key, "v");
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        assertFalse(map.values().iterator().hasNext());
+        map.put(5, "w");
+        assertEquals("w", map.get(5));
+        assertEquals(1, map.size());
+    }
+
+    // Изменение таблицы во время обхода values() обнаруживается
+    @Test
+    void shouldFailFastOnConcurrentModification() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.put(3, "c");
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        Iterator<String> afterRemove = map.values().iterator();
+        map.remove(1);
+        assertThrows(ConcurrentModificationException.class, afterRemove::next);
+    }
+
+    // Случайные операции дают тот же результат, что и HashMap, в том числе на сталкивающихся ключах
+    @Test
+    void shouldMatchHashMapOnRandomOperations() {
+        Random random = new Random(19);
+        // Ключи из узкого диапазона, кратные 2^16 и с общей «родной» ячейкой в конце таблицы
+        List<Integer> pool = new ArrayList<>();
+        for (int key = -64; key < 256; key++) {
+            pool.add(key);
+            pool.add(key << 16);
+        }
+        pool.addAll(keysWithHome(15, 32));
+        pool.add(Integer.MIN_VALUE);
+        pool.add(Integer.MAX_VALUE);
+
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>(8);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            int key = pool.get(random.nextInt(pool.size()));
+            int operation = random.nextInt(10);
+            if (operation < 4) {
+                assertEquals(expected.put(key, step), map.put(key, step));
+            } else if (operation < 7) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else if (operation == 7 && random.nextInt(2000) == 0) {
+                expected.clear();
+                map.clear();
+            } else {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key : pool) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        List<Integer> values = new ArrayList<>(map.values());
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        values.sort(null);
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values);
+    }
+}
@@ -0,0 +1,87 @@
+package test;
+
+import managers.OffHeapTaskManager;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTaskManagerTest extends test.TaskManagerTest<OffHeapTaskManager> {
+
+    @Override
+    protected OffHeapTaskManager createManager() {
+        return new OffHeapTaskManager();
+    }
+
+    // Менеджер возвращает копии, поэтому после изменения подзадач эпик нужно получить заново
+    @Override
+    @Test
+    void shouldKeepEpicStatusAndTimeInSyncWithSubtasks() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        int firstId = manager.addNewSubtask(new Subtask("S1", "D1", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 9, 0), epicId));
+        int secondId = manager.addNewSubtask(new Subtask("S2", "D2", TaskStatus.NEW, Duration.ofMinutes(20), LocalDateTime.of(2025, 5, 27, 11, 0), epicId));
+
+        manager.updateSubtask(new Subtask(firstId, "S1", "D1", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 9, 0), epicId));
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(50), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 11, 20), epic.getEndTime());
+
+        manager.removeSubtask(secondId);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Полученная ранее копия не меняется");
+        epic = manager.getEpic(epicId);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 9, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 9, 30), epic.getEndTime());
+    }
+
+    // Подзадача, перенесённая в другой эпик, уходит из списка старого и попадает в конец списка нового
+    @Test
+    void shouldMoveSubtaskBetweenEpicsAndKeepOrder() {
+        int firstEpic = manager.addNewEpic(new Epic("E1", "D"));
+        int secondEpic = manager.addNewEpic(new Epic("E2", "D"));
+        int a = manager.addNewSubtask(new Subtask("A", "D", TaskStatus.NEW, Duration.ofMinutes(10), null, firstEpic));
+        int b = manager.addNewSubtask(new Subtask("B", "D", TaskStatus.DONE, Duration.ofMinutes(10), null, firstEpic));
+        int c = manager.addNewSubtask(new Subtask("C", "D", TaskStatus.NEW, Duration.ofMinutes(10), null, secondEpic));
+
+        manager.updateSubtask(new Subtask(a, "A2", "D", TaskStatus.DONE, Duration.ofMinutes(10), null, secondEpic));
+        assertEquals(1, manager.getEpicSubtasks(firstEpic).size());
+        assertEquals(b, manager.getEpicSubtasks(firstEpic).get(0).getId());
+        assertEquals(TaskStatus.DONE, manager.getEpic(firstEpic).getStatus());
+        assertEquals(c, manager.getEpicSubtasks(secondEpic).get(0).getId());
+        assertEquals("A2", manager.getEpicSubtasks(secondEpic).get(1).getName());
+
+        manager.removeEpic(secondEpic);
+        assertNull(manager.getSubtask(a));
+        assertNull(manager.getSubtask(c));
+        assertEquals(1, manager.getSubtasks().size());
+    }
+
+    // Изменённая строка пишется заново, неизменённая остаётся на месте; поля читаются без потерь
+    @Test
+    void shouldKeepFieldsAcrossUpdates() {
+        Task task = new Task("Название", "Описание с \"кавычками\"", TaskStatus.NEW,
+                Duration.ofMinutes(90), LocalDateTime.of(2025, 6, 1, 8, 15, 30));
+        int id = manager.addNewTask(task);
+        long before = manager.getOffHeapBytes();
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(new Task(id, "Название", null, TaskStatus.IN_PROGRESS,
+                    Duration.ofMinutes(90), LocalDateTime.of(2025, 6, 1, 8, 15, 30)));
+        }
+        assertEquals(before, manager.getOffHeapBytes());
+
+        Task stored = manager.getTask(id);
+        assertEquals("Название", stored.getName());
+        assertNull(stored.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, stored.getStatus());
+        assertEquals(LocalDateTime.of(2025, 6, 1, 8, 15, 30), stored.getStartTime());
+        assertEquals(Duration.ofMinutes(90), stored.getDuration());
+    }
+}
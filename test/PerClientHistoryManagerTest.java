@@ -0,0 +1,105 @@
+package test;
+
+import managers.PerClientHistoryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerClientHistoryManagerTest {
+
+    private static Task task(int id) {
+        return new Task(id, "T" + id, "D", TaskStatus.NEW, Duration.ofMinutes(5), null);
+    }
+
+    @AfterEach
+    void clearClient() {
+        PerClientHistoryManager.clearCurrentClient();
+    }
+
+    // У каждого клиента своя история ограниченного размера; без клиента — общая
+    @Test
+    void shouldKeepSeparateBoundedHistories() {
+        PerClientHistoryManager history = new PerClientHistoryManager(2, 10);
+        PerClientHistoryManager.setCurrentClient("alice");
+        history.add(task(1));
+        history.add(task(2));
+        history.add(task(3));
+        PerClientHistoryManager.setCurrentClient("bob");
+        history.add(task(1));
+
+        assertEquals(1, history.getHistory().size());
+        PerClientHistoryManager.setCurrentClient("alice");
+        assertEquals(2, history.getHistory().size());
+        assertEquals(2, history.getHistory().get(0).getId());
+        PerClientHistoryManager.clearCurrentClient();
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    // Удалённая задача исчезает из истории всех клиентов
+    @Test
+    void shouldRemoveTaskFromEveryClient() {
+        PerClientHistoryManager history = new PerClientHistoryManager(3, 10);
+        for (String client : new String[]{"a", "b", "c"}) {
+            PerClientHistoryManager.setCurrentClient(client);
+            history.add(task(1));
+            history.add(task(2));
+        }
+        history.remove(1);
+        for (String client : new String[]{"a", "b", "c"}) {
+            PerClientHistoryManager.setCurrentClient(client);
+            assertEquals(1, history.getHistory().size());
+            assertEquals(2, history.getHistory().get(0).getId());
+        }
+    }
+
+    // Сверх maxClients вытесняется клиент, дольше всех не обращавшийся к истории
+    @Test
+    void shouldEvictLeastRecentlyUsedClient() {
+        PerClientHistoryManager history = new PerClientHistoryManager(3, 2);
+        PerClientHistoryManager.setCurrentClient("a");
+        history.add(task(1));
+        PerClientHistoryManager.setCurrentClient("b");
+        history.add(task(2));
+        PerClientHistoryManager.setCurrentClient("a");
+        history.getHistory();
+        PerClientHistoryManager.setCurrentClient("c");
+        history.add(task(3));
+
+        assertEquals(2, history.getClientCount());
+        PerClientHistoryManager.setCurrentClient("b");
+        assertTrue(history.getHistory().isEmpty(), "Клиент b вытеснен");
+        PerClientHistoryManager.setCurrentClient("a");
+        assertEquals(1, history.getHistory().size());
+    }
+
+    // Клиент, простоявший дольше таймаута, вытесняется вместе со своими записями обратного индекса
+    @Test
+    void shouldEvictIdleClients() throws InterruptedException {
+        PerClientHistoryManager history = new PerClientHistoryManager(3, 10, 1);
+        PerClientHistoryManager.setCurrentClient("alice");
+        history.add(task(1));
+        Thread.sleep(20);
+        PerClientHistoryManager.setCurrentClient("bob");
+        history.add(task(1));
+
+        assertEquals(1, history.getClientCount());
+        PerClientHistoryManager.setCurrentClient("alice");
+        assertTrue(history.getHistory().isEmpty());
+
+        PerClientHistoryManager active = new PerClientHistoryManager(3, 10, TimeUnit.HOURS.toMillis(1));
+        PerClientHistoryManager.setCurrentClient("alice");
+        active.add(task(1));
+        PerClientHistoryManager.setCurrentClient("bob");
+        active.add(task(2));
+        assertEquals(2, active.getClientCount());
+        active.remove(1);
+        PerClientHistoryManager.setCurrentClient("alice");
+        assertTrue(active.getHistory().isEmpty());
+    }
+}
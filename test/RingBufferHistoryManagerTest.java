@@ -0,0 +1,71 @@
+package test;
+
+import managers.RingBufferHistoryManager;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferHistoryManagerTest {
+
+    private static Task task(int id) {
+        return new Task(id, "T" + id, "D", TaskStatus.NEW, Duration.ofMinutes(5), null);
+    }
+
+    private static String ids(List<Task> history) {
+        StringBuilder sb = new StringBuilder();
+        for (Task task : history) {
+            sb.append(task.getId()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    // Повторный просмотр переносит задачу в конец, самая старая вытесняется при переполнении
+    @Test
+    void shouldMoveRepeatedViewToEndAndEvictOldest() {
+        RingBufferHistoryManager history = new RingBufferHistoryManager(3);
+        history.add(task(1));
+        history.add(task(2));
+        history.add(task(3));
+        history.add(task(1));
+        assertEquals("2 3 1", ids(history.getHistory()));
+
+        history.add(task(4));
+        assertEquals("3 1 4", ids(history.getHistory()));
+    }
+
+    // Удаление из середины оставляет порядок остальных, а новые просмотры снова заполняют кольцо
+    @Test
+    void shouldRemoveFromMiddleAndReuseSpace() {
+        RingBufferHistoryManager history = new RingBufferHistoryManager(4);
+        for (int id = 1; id <= 4; id++) {
+            history.add(task(id));
+        }
+        history.remove(2);
+        history.remove(3);
+        history.remove(42);
+        assertEquals("1 4", ids(history.getHistory()));
+
+        history.add(task(5));
+        history.add(task(6));
+        assertEquals("1 4 5 6", ids(history.getHistory()));
+        history.add(task(7));
+        assertEquals("4 5 6 7", ids(history.getHistory()));
+
+        for (int id = 4; id <= 7; id++) {
+            history.remove(id);
+        }
+        assertTrue(history.getHistory().isEmpty());
+        history.add(task(8));
+        assertEquals("8", ids(history.getHistory()));
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferHistoryManager(0));
+    }
+}
@@ -0,0 +1,88 @@
+package test;
+
+import managers.BoardSnapshot;
+import managers.SnapshotTaskManager;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTaskManagerTest extends TaskManagerTest<SnapshotTaskManager> {
+
+    @Override
+    protected SnapshotTaskManager createManager() {
+        return new SnapshotTaskManager();
+    }
+
+    // Полученный список — снимок: последующие изменения его не затрагивают
+    @Test
+    void shouldReturnListsThatDoNotChangeAfterWrites() {
+        int firstId = manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2025, 7, 1, 9, 0)));
+        List<Task> before = manager.getTasks();
+        List<Task> prioritizedBefore = manager.getPrioritizedTasks();
+
+        manager.addNewTask(new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2025, 7, 1, 8, 0)));
+        manager.removeTask(firstId);
+
+        assertEquals(1, before.size());
+        assertEquals(firstId, before.get(0).getId());
+        assertEquals(1, prioritizedBefore.size());
+        assertEquals(1, manager.getTasks().size());
+        assertNotEquals(firstId, manager.getTasks().get(0).getId());
+    }
+
+    @Test
+    void shouldKeepSnapshotConsistentWithRejectedWrites() {
+        manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 7, 2, 9, 0)));
+        Task overlapping = new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 7, 2, 9, 30));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addNewTask(overlapping));
+        assertEquals(1, manager.getTasks().size());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldTrackEpicSubtasksInSnapshot() {
+        int epicId = manager.addNewEpic(new Epic("E", "D"));
+        int subId = manager.addNewSubtask(new Subtask("S", "D", TaskStatus.NEW, Duration.ofMinutes(5), LocalDateTime.of(2025, 7, 3, 9, 0), epicId));
+        List<Subtask> before = manager.getEpicSubtasks(epicId);
+
+        manager.removeSubtask(subId);
+
+        assertEquals(1, before.size());
+        assertTrue(manager.getEpicSubtasks(epicId).isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+
+    // Эпик в опубликованном снимке не меняется при изменении его подзадач
+    @Test
+    void shouldNotChangePublishedEpicsAfterSubtaskWrites() {
+        int epicId = manager.addNewEpic(new Epic("E", "D"));
+        int subId = manager.addNewSubtask(new Subtask("S", "D", TaskStatus.DONE, Duration.ofMinutes(5), LocalDateTime.of(2025, 7, 4, 9, 0), epicId));
+        BoardSnapshot before = manager.getSnapshot();
+        Epic epicBefore = manager.getEpics().get(0);
+
+        manager.addNewSubtask(new Subtask("S2", "D", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2025, 7, 4, 10, 0), epicId));
+        manager.removeSubtask(subId);
+
+        assertSame(epicBefore, before.getEpic(epicId));
+        assertEquals(TaskStatus.DONE, epicBefore.getStatus());
+        assertEquals(1, epicBefore.getSubtasks().size());
+        assertEquals(Duration.ofMinutes(5), epicBefore.getDuration());
+        Epic epicAfter = manager.getEpic(epicId);
+        assertEquals(TaskStatus.NEW, epicAfter.getStatus());
+        assertEquals(Duration.ofMinutes(10), epicAfter.getDuration());
+
+        manager.removeAllSubtasks();
+        assertEquals(1, epicAfter.getSubtasks().size());
+        assertTrue(manager.getEpic(epicId).getSubtasks().isEmpty());
+        assertNull(manager.getEpic(epicId).getStartTime());
+    }
+}
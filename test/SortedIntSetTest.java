@@ -0,0 +1,68 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import utils.SortedIntSet;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIntSetTest {
+
+    private static List<Integer> drain(PrimitiveIterator.OfInt iterator) {
+        List<Integer> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.nextInt());
+        }
+        return result;
+    }
+
+    // Последовательные значения дописываются в конец, обход с любого места идёт по возрастанию
+    @Test
+    void shouldIterateAfterValue() {
+        SortedIntSet set = new SortedIntSet();
+        for (int value = 1; value <= 5000; value++) {
+            assertTrue(set.add(value));
+        }
+        assertFalse(set.add(42));
+        assertEquals(5000, set.size());
+        assertEquals(List.of(4998, 4999, 5000), drain(set.iteratorAfter(4997)));
+        assertEquals(1, set.iteratorAfter(Integer.MIN_VALUE).nextInt());
+        assertFalse(set.iteratorAfter(5000).hasNext());
+        assertFalse(set.iteratorAfter(Integer.MAX_VALUE).hasNext());
+
+        PrimitiveIterator.OfInt iterator = set.iterator();
+        iterator.nextInt();
+        set.remove(3);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+    }
+
+    // Случайные вставки и удаления (с делением и удалением блоков) дают то же, что TreeSet
+    @Test
+    void shouldMatchTreeSetOnRandomOperations() {
+        Random random = new Random(8);
+        SortedIntSet set = new SortedIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int step = 0; step < 100_000; step++) {
+            int value = random.nextInt(6000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+            if (step % 5000 == 0) {
+                assertEquals(new ArrayList<>(expected.tailSet(value, false)), drain(set.iteratorAfter(value)));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), drain(set.iterator()));
+        for (int value = -1000; value < 5000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -116,6 +117,28 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertNull(manager.getSubtask(subId1));
     }
 
+    @Test
+    void shouldIgnoreSubtasksSuppliedWithNewEpic() {
+        Epic epic = new Epic("Epic", "Epic desc");
+        epic.addSubtask(new Subtask(999, "S", "D", TaskStatus.DONE, Duration.ofMinutes(30),
+                LocalDateTime.of(2025, 5, 21, 9, 0), 0));
+        Epic batchEpic = new Epic("Batch", "Epic desc");
+        batchEpic.addSubtask(new Subtask(998, "S", "D", TaskStatus.IN_PROGRESS, Duration.ofMinutes(30),
+                LocalDateTime.of(2025, 5, 21, 10, 0), 0));
+
+        int epicId = manager.addNewEpic(epic);
+        int batchEpicId = manager.addNewEpics(List.of(batchEpic)).getIds().get(0);
+
+        for (int id : new int[]{epicId, batchEpicId}) {
+            Epic loaded = manager.getEpic(id);
+            assertTrue(loaded.getSubtasks().isEmpty(), "Чужие подзадачи не должны попасть в эпик");
+            assertEquals(TaskStatus.NEW, loaded.getStatus());
+            assertNull(loaded.getStartTime());
+            assertTrue(manager.getEpicSubtasks(id).isEmpty());
+        }
+        assertTrue(manager.getSubtasks().isEmpty());
+    }
+
     @Test
     void shouldRemoveSubtask() {
         Epic epic = new Epic("Epic", "Epic desc");
@@ -188,4 +211,185 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         List<Task> history = manager.getHistory();
         assertTrue(history.stream().anyMatch(t -> t.getId() == taskId));
     }
+
+    @Test
+    void shouldRejectOverlappingTask() {
+        manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 23, 10, 0)));
+        Task overlapping = new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 23, 10, 30));
+        Task adjacent = new Task("E", "F", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 23, 11, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addNewTask(overlapping));
+        manager.addNewTask(adjacent);
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldKeepTaskWhenUpdateOverlaps() {
+        int firstId = manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 24, 10, 0)));
+        int secondId = manager.addNewTask(new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 24, 12, 0)));
+        Task update = new Task(secondId, "C", "D", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 24, 10, 30));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(update));
+        assertEquals(LocalDateTime.of(2025, 5, 24, 12, 0), manager.getTask(secondId).getStartTime());
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(firstId, prioritized.get(0).getId());
+        assertEquals(secondId, prioritized.get(1).getId());
+    }
+
+    @Test
+    void shouldPutTasksWithoutStartTimeLast() {
+        int unscheduledId = manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(10), null));
+        int scheduledId = manager.addNewTask(new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(10), LocalDateTime.of(2025, 5, 25, 9, 0)));
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size());
+        assertEquals(scheduledId, prioritized.get(0).getId());
+        assertEquals(unscheduledId, prioritized.get(1).getId());
+    }
+
+    @Test
+    void shouldFindFreeSlotsBetweenTasks() {
+        manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 26, 9, 0)));
+        manager.addNewTask(new Task("C", "D", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 26, 10, 15)));
+        manager.addNewTask(new Task("E", "F", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 26, 12, 0)));
+
+        List<TimeSlot> slots = manager.findFreeSlots(Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 26, 9, 30), 3);
+
+        assertEquals(2, slots.size());
+        assertEquals(LocalDateTime.of(2025, 5, 26, 11, 15), slots.get(0).getStart());
+        assertEquals(LocalDateTime.of(2025, 5, 26, 12, 0), slots.get(0).getEnd());
+        assertEquals(LocalDateTime.of(2025, 5, 26, 13, 0), slots.get(1).getStart());
+        assertNull(slots.get(1).getEnd());
+    }
+
+    @Test
+    void shouldKeepEpicStatusAndTimeInSyncWithSubtasks() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        int firstId = manager.addNewSubtask(new Subtask("S1", "D1", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 9, 0), epicId));
+        int secondId = manager.addNewSubtask(new Subtask("S2", "D2", TaskStatus.NEW, Duration.ofMinutes(20), LocalDateTime.of(2025, 5, 27, 11, 0), epicId));
+
+        manager.updateSubtask(new Subtask(firstId, "S1", "D1", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 9, 0), epicId));
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(50), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 11, 20), epic.getEndTime());
+
+        manager.removeSubtask(secondId);
+        epic = manager.getEpic(epicId);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 9, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 9, 30), epic.getEndTime());
+    }
+
+    @Test
+    void shouldPageTasksById() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        int first = manager.addNewTask(new Task("T1", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        manager.addNewSubtask(new Subtask("S", "D", TaskStatus.NEW, Duration.ofMinutes(5), null, epicId));
+        int second = manager.addNewTask(new Task("T2", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        int third = manager.addNewTask(new Task("T3", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+
+        List<Task> firstPage = manager.getTasksPage(0, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(first, firstPage.get(0).getId());
+        assertEquals(second, firstPage.get(1).getId());
+
+        int fourth = manager.addNewTask(new Task("T4", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        List<Task> secondPage = manager.getTasksPage(second, 2);
+        assertEquals(2, secondPage.size());
+        assertEquals(third, secondPage.get(0).getId());
+        assertEquals(fourth, secondPage.get(1).getId());
+        assertTrue(manager.getTasksPage(fourth, 2).isEmpty());
+        assertEquals(1, manager.getSubtasksPage(0, 10).size());
+        assertEquals(epicId, manager.getEpicsPage(0, 10).get(0).getId());
+    }
+
+    // Страницы задач идут по id и без пропусков, когда их id перемешаны с id подзадач и часть задач удалена
+    @Test
+    void shouldPageTasksInterleavedWithSubtasks() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            taskIds.add(manager.addNewTask(new Task("T" + i, "D", TaskStatus.NEW, null, null)));
+            manager.addNewSubtask(new Subtask("S" + i, "D", TaskStatus.NEW, null, null, epicId));
+            manager.addNewSubtask(new Subtask("S" + i, "D", TaskStatus.NEW, null, null, epicId));
+        }
+        for (int i = 0; i < taskIds.size(); i += 5) {
+            manager.removeTask(taskIds.get(i));
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < taskIds.size(); i++) {
+            if (i % 5 != 0) {
+                expected.add(taskIds.get(i));
+            }
+        }
+
+        int cursor = expected.get(149);
+        List<Integer> page = new ArrayList<>();
+        for (Task task : manager.getTasksPage(cursor, 7)) {
+            page.add(task.getId());
+        }
+        assertEquals(expected.subList(150, 157), page);
+        // Курсором может быть и id удалённой задачи
+        assertEquals(expected.get(0), Integer.valueOf(manager.getTasksPage(taskIds.get(0), 1).get(0).getId()));
+
+        List<Integer> all = new ArrayList<>();
+        cursor = 0;
+        List<Task> next;
+        while (!(next = manager.getTasksPage(cursor, 13)).isEmpty()) {
+            for (Task task : next) {
+                all.add(task.getId());
+            }
+            cursor = next.get(next.size() - 1).getId();
+        }
+        assertEquals(expected, all);
+        assertEquals(800, manager.getSubtasksPage(0, 1000).size());
+    }
+
+    // Пакет добавляется целиком или не добавляется вовсе, конфликты указывают на элементы пакета
+    @Test
+    void shouldAddBatchAllOrNothing() {
+        int existingId = manager.addNewTask(new Task("A", "B", TaskStatus.NEW, Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 28, 10, 0)));
+        List<Task> rejected = List.of(
+                new Task("T0", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 8, 0)),
+                new Task("T1", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 10, 30)),
+                new Task("T2", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 12, 0)),
+                new Task("T3", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 12, 15)));
+
+        BatchResult result = manager.addNewTasks(rejected);
+        assertFalse(result.isAccepted());
+        assertEquals(2, result.getConflicts().size());
+        assertEquals(1, result.getConflicts().get(0).getIndex());
+        assertEquals(Integer.valueOf(existingId), result.getConflicts().get(0).getConflictingId());
+        assertEquals(3, result.getConflicts().get(1).getIndex());
+        assertEquals(Integer.valueOf(2), result.getConflicts().get(1).getConflictingIndex());
+        assertEquals(1, manager.getTasks().size(), "Отклонённый пакет ничего не добавляет");
+
+        List<Task> accepted = List.of(
+                new Task("T0", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 8, 0)),
+                new Task("T1", "D", TaskStatus.NEW, Duration.ofMinutes(30), null),
+                new Task("T2", "D", TaskStatus.NEW, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 11, 0)));
+        result = manager.addNewTasks(accepted);
+        assertTrue(result.isAccepted());
+        assertEquals(3, result.getIds().size());
+        assertEquals("T2", manager.getTask(result.getIds().get(2)).getName());
+        assertEquals(4, manager.getPrioritizedTasks().size());
+        assertEquals("T0", manager.getPrioritizedTasks().get(0).getName());
+
+        int epicId = manager.addNewEpics(List.of(new Epic("E", "D"))).getIds().get(0);
+        result = manager.addNewSubtasks(List.of(
+                new Subtask("S0", "D", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 14, 0), epicId),
+                new Subtask("S1", "D", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 15, 0), epicId + 100)));
+        assertFalse(result.isAccepted());
+        assertEquals(1, result.getConflicts().get(0).getIndex());
+        assertTrue(manager.getEpicSubtasks(epicId).isEmpty());
+
+        result = manager.addNewSubtasks(List.of(
+                new Subtask("S0", "D", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 14, 0), epicId),
+                new Subtask("S1", "D", TaskStatus.DONE, Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 28, 15, 0), epicId)));
+        assertTrue(result.isAccepted());
+        assertEquals(2, manager.getEpicSubtasks(epicId).size());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+    }
 }
@@ -2,6 +2,7 @@ package test;
 
 import org.junit.jupiter.api.Test;
 import tasks.*;
+import utils.CsvUtil;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -36,6 +37,7 @@ public class TaskTest {
         Epic epic = new Epic("Переезд", "Собрать вещи");
         // Подзадача 1: 1 января 12:00 - 1 января 12:30 (30 минут)
         Subtask sub1 = new Subtask(
+                1,
                 "Упаковать вещи",
                 "Всё собрать по списку",
                 TaskStatus.DONE,
@@ -45,6 +47,7 @@ public class TaskTest {
         );
         // Подзадача 2: 1 января 12:30 - 1 января 13:20 (50 минут)
         Subtask sub2 = new Subtask(
+                2,
                 "Найти грузчиков",
                 "Позвонить в компанию",
                 TaskStatus.DONE,
@@ -69,4 +72,23 @@ public class TaskTest {
         assertEquals(LocalDateTime.of(2024, 1, 1, 13, 20), epic.getEndTime(),
                 "Время окончания эпика должно совпадать с самой поздней подзадачей");
     }
+
+    // Проверяем, что запятые, кавычки и переводы строки переживают запись в CSV и обратно
+    @Test
+    void csvRoundTripWithQuoting() {
+        Subtask sub = new Subtask(7, "Купить \"молоко\", хлеб", "Строка 1\nСтрока 2", TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(15), LocalDateTime.of(2024, 3, 9, 8, 5, 7), 3);
+        String csv = CsvUtil.toCsv(sub);
+        assertEquals("7,SUBTASK,\"Купить \"\"молоко\"\", хлеб\",IN_PROGRESS,\"Строка 1\nСтрока 2\","
+                + "2024-03-09 08:05:07,15,3", csv);
+
+        Subtask parsed = (Subtask) CsvUtil.fromCsvTask(csv);
+        assertEquals(sub.getName(), parsed.getName());
+        assertEquals(sub.getDescription(), parsed.getDescription());
+        assertEquals(sub.getStatus(), parsed.getStatus());
+        assertEquals(sub.getStartTime(), parsed.getStartTime());
+        assertEquals(sub.getDuration(), parsed.getDuration());
+        assertEquals(3, parsed.getEpicId());
+        assertThrows(IllegalArgumentException.class, () -> CsvUtil.fromCsvTask("1,TASK,\"без конца,NEW,Описание"));
+    }
 }
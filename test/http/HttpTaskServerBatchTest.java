@@ -0,0 +1,152 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import http.HttpTaskServer;
+import http.handler.BaseHttpHandler;
+import managers.InMemoryTaskManager;
+import managers.Managers;
+import managers.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerBatchTest {
+    private TaskManager manager;
+    private HttpTaskServer taskServer;
+    private HttpClient client;
+    private Gson gson;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        manager = new InMemoryTaskManager();
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+        client = HttpClient.newHttpClient();
+        gson = Managers.getGson();
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
+
+    // Операции пакета выполняются по порядку, у каждой свой код результата
+    @Test
+    public void testBatchOperations() throws IOException, InterruptedException {
+        int taskId = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 10, 0)));
+        Task overlapping = new Task("Overlap", "Desc", TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 10, 15));
+        Epic epic = new Epic("Epic", "Desc");
+
+        String body = "["
+                + "{\"op\":\"get\",\"type\":\"task\",\"id\":" + taskId + "},"
+                + "{\"op\":\"create\",\"type\":\"epic\",\"body\":" + gson.toJson(epic) + "},"
+                + "{\"op\":\"create\",\"type\":\"task\",\"body\":" + gson.toJson(overlapping) + "},"
+                + "{\"op\":\"get\",\"type\":\"subtask\",\"id\":999},"
+                + "{\"op\":\"delete\",\"type\":\"task\",\"id\":" + taskId + "},"
+                + "{\"op\":\"get\",\"type\":\"task\",\"ids\":[" + taskId + ",999]},"
+                + "{\"op\":\"frobnicate\",\"type\":\"task\"}"
+                + "]";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(7, results.size());
+        JsonObject got = results.get(0).getAsJsonObject();
+        assertEquals(200, got.get("status").getAsInt());
+        assertEquals("Task", got.getAsJsonObject("body").get("name").getAsString());
+        assertEquals(201, results.get(1).getAsJsonObject().get("status").getAsInt());
+        int epicId = results.get(1).getAsJsonObject().get("id").getAsInt();
+        assertNotNull(manager.getEpic(epicId), "Эпик должен быть создан");
+        assertEquals(406, results.get(2).getAsJsonObject().get("status").getAsInt());
+        assertEquals(404, results.get(3).getAsJsonObject().get("status").getAsInt());
+        assertEquals(201, results.get(4).getAsJsonObject().get("status").getAsInt());
+        assertEquals(0, results.get(5).getAsJsonObject().getAsJsonArray("body").size(),
+                "Задача удалена предыдущей операцией пакета");
+        assertEquals(400, results.get(6).getAsJsonObject().get("status").getAsInt());
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
+    @Test
+    public void testMalformedBatchRejected() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"op\":"))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    // Неразбираемое тело операции и слишком длинный список ids — ошибки клиента (400), а не сервера
+    @Test
+    public void testInvalidOperationsRejectedWithBadRequest() throws IOException, InterruptedException {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 1; i <= BaseHttpHandler.MAX_PAGE_SIZE + 1; i++) {
+            ids.append(i == 1 ? "" : ",").append(i);
+        }
+        String body = "["
+                + "{\"op\":\"create\",\"type\":\"task\",\"body\":{\"name\":[1]}},"
+                + "{\"op\":\"get\",\"type\":\"task\",\"ids\":[" + ids + "]}"
+                + "]";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(400, results.get(0).getAsJsonObject().get("status").getAsInt());
+        assertEquals(400, results.get(1).getAsJsonObject().get("status").getAsInt());
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
+    // Несколько задач по списку id одним запросом; несуществующие id пропускаются
+    @Test
+    public void testGetTasksByIds() throws IOException, InterruptedException {
+        int first = manager.addNewTask(new Task("First", "Desc", TaskStatus.NEW, Duration.ofMinutes(10), null));
+        int second = manager.addNewTask(new Task("Second", "Desc", TaskStatus.NEW, Duration.ofMinutes(10), null));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?ids=" + second + ",999," + first))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(2, tasks.size());
+        assertEquals("Second", tasks.get(0).getName());
+        assertEquals("First", tasks.get(1).getName());
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?ids=1,x"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
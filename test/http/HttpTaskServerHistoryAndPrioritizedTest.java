@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tasks.Task;
 import tasks.TaskStatus;
+import tasks.TimeSlot;
+import http.ClientIdFilter;
 import http.HttpTaskServer;
 
 import java.io.IOException;
@@ -130,4 +132,90 @@ public class HttpTaskServerHistoryAndPrioritizedTest {
         assertEquals(task1.getName(), tasks.get(0).getName(), "Первая задача в списке неправильная");
         assertEquals(task2.getName(), tasks.get(1).getName(), "Вторая задача в списке неправильная");
     }
+
+    @Test
+    void testGetFreeSlots() throws IOException, InterruptedException {
+        manager.addNewTask(new Task("Task 1", "Desc 1", TaskStatus.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2022, 1, 1, 10, 0)));
+        manager.addNewTask(new Task("Task 2", "Desc 2", TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2022, 1, 1, 11, 20)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/prioritized/free?duration=PT20M&after=2022-01-01T10:00&limit=2"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код ответа от /prioritized/free");
+        Type slotListType = new TypeToken<List<TimeSlot>>() {
+        }.getType();
+        List<TimeSlot> slots = gson.fromJson(response.body(), slotListType);
+
+        assertEquals(2, slots.size(), "Неверное количество свободных промежутков");
+        assertEquals(LocalDateTime.of(2022, 1, 1, 11, 0), slots.get(0).getStart());
+        assertEquals(LocalDateTime.of(2022, 1, 1, 11, 20), slots.get(0).getEnd());
+        assertEquals(LocalDateTime.of(2022, 1, 1, 11, 50), slots.get(1).getStart());
+    }
+
+    @Test
+    void testGetFreeSlotsWithoutDuration() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/prioritized/free"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode(), "Без длительности ожидался код 400");
+    }
+
+    @Test
+    void testGetFreeSlotsWithTooLargeLimit() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/prioritized/free?duration=PT20M&after=2022-01-01T10:00&limit="
+                        + Integer.MAX_VALUE))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode(), "limit больше MAX_PAGE_SIZE не принимается");
+    }
+
+    // Просмотры клиентов с разными X-Client-Id не смешиваются в /history
+    @Test
+    public void testHistoryIsPerClient() throws IOException, InterruptedException {
+        taskServer.stop();
+        manager = new InMemoryTaskManager(Managers.getPerClientHistory(10, 100));
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+        int first = manager.addNewTask(new Task("First", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+        int second = manager.addNewTask(new Task("Second", "D", TaskStatus.NEW, Duration.ofMinutes(5), null));
+
+        for (String[] view : new String[][]{{"alice", "id=" + first}, {"bob", "id=" + second}}) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks?" + view[1]))
+                    .header(ClientIdFilter.CLIENT_ID_HEADER, view[0])
+                    .GET()
+                    .build();
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+
+        Type listType = new TypeToken<List<Task>>() {
+        }.getType();
+        for (String[] expected : new String[][]{{"alice", "First"}, {"bob", "Second"}}) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/history"))
+                    .header(ClientIdFilter.CLIENT_ID_HEADER, expected[0])
+                    .GET()
+                    .build();
+            List<Task> history = gson.fromJson(client.send(request, HttpResponse.BodyHandlers.ofString()).body(), listType);
+            assertEquals(1, history.size());
+            assertEquals(expected[1], history.get(0).getName());
+        }
+
+        HttpRequest anonymous = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history"))
+                .GET()
+                .build();
+        assertEquals("[]", client.send(anonymous, HttpResponse.BodyHandlers.ofString()).body());
+    }
 }
@@ -16,7 +16,13 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -167,4 +173,140 @@ public class HttpTaskServerTasksTest {
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(406, response.statusCode(), "Задача пересекается и должна быть отклонена");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentPostsOnVirtualThreads() throws IOException {
+        TaskManager concurrentManager = Managers.getConcurrent();
+        HttpTaskServer virtualServer = new HttpTaskServer(concurrentManager, 8081, 0,
+                HttpTaskServer.ExecutorMode.VIRTUAL_THREADS);
+        virtualServer.start();
+        try {
+            LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Task task = new Task("Task " + i, "Parallel", TaskStatus.NEW,
+                        Duration.ofMinutes(10), base.plusMinutes(10L * i));
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8081/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.join().statusCode());
+            }
+            assertEquals(50, concurrentManager.getTasks().size());
+        } finally {
+            virtualServer.stop();
+        }
+    }
+
+    // stop дожидается запроса, который ещё выполняется в пуле, после чего порт можно сразу занять снова
+    @Test
+    public void testStopWaitsForRunningRequestsAndFreesPort() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        TaskManager slowManager = new InMemoryTaskManager() {
+            @Override
+            public List<Task> getTasks() {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.set(true);
+                return super.getTasks();
+            }
+        };
+        HttpTaskServer poolServer = new HttpTaskServer(slowManager, 8082, 0, HttpTaskServer.ExecutorMode.THREAD_POOL);
+        poolServer.start();
+        client.sendAsync(HttpRequest.newBuilder().uri(URI.create("http://localhost:8082/tasks")).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        new Thread(release::countDown).start();
+        poolServer.stop();
+        assertTrue(finished.get(), "stop вернулся раньше, чем закончился запрос");
+
+        HttpTaskServer restarted = new HttpTaskServer(Managers.getConcurrent(), 8082, 0,
+                HttpTaskServer.ExecutorMode.THREAD_POOL);
+        restarted.start();
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8082/tasks")).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testGetTasksPageWithCursor() throws IOException, InterruptedException {
+        LocalDateTime base = LocalDateTime.of(2031, 1, 1, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            manager.addNewTask(new Task("Task " + i, "Paged", TaskStatus.NEW, Duration.ofMinutes(5), base.plusMinutes(10L * i)));
+        }
+        Type taskListType = new TypeToken<List<Task>>() {
+        }.getType();
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, first.statusCode());
+        List<Task> firstPage = gson.fromJson(first.body(), taskListType);
+        assertEquals(2, firstPage.size());
+        String cursor = first.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2&cursor=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Task> secondPage = gson.fromJson(second.body(), taskListType);
+        assertEquals(1, secondPage.size());
+        assertEquals("Task 2", secondPage.get(0).getName());
+        assertTrue(second.headers().firstValue("X-Next-Cursor").isEmpty(), "На последней странице курсора нет");
+    }
+
+    // Ошибка посреди потоковой отдачи списка обрывает соединение, а не отдаёт «успешный» обрезок массива
+    @Test
+    public void testListFailureMidStreamIsNotAValidResponse() throws IOException, InterruptedException {
+        taskServer.stop();
+        Task good = new Task(1, "Good", "D", TaskStatus.NEW, Duration.ofMinutes(5), null);
+        TaskManager failing = new InMemoryTaskManager() {
+            @Override
+            public List<Task> getTasks() {
+                return new AbstractList<>() {
+                    @Override
+                    public Task get(int index) {
+                        if (index == 0) {
+                            return good;
+                        }
+                        throw new IllegalStateException("Сбой при чтении списка");
+                    }
+
+                    @Override
+                    public int size() {
+                        return 2;
+                    }
+                };
+            }
+        };
+        taskServer = new HttpTaskServer(failing);
+        taskServer.start();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        assertThrows(IOException.class, () -> client.send(request, HttpResponse.BodyHandlers.ofString()),
+                "Заголовки 200 уже отправлены, поэтому ответ должен оборваться, а не завершиться обрезком");
+
+        HttpResponse<String> next = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, next.statusCode(), "Сервер продолжает отвечать после оборванного ответа");
+    }
+}